@@ -0,0 +1,70 @@
+package com.claims.bench;
+
+import com.claims.AuditHistory;
+import com.claims.AuditLogger;
+import com.claims.model.Claim;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// logEvent from N threads until every event is written; close() drains the writer, so the time
+// covers the disk as well as the callers.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AuditBenchmark {
+    private static final int EVENTS = 200_000;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param({"BATCH", "INTERVAL"})
+    public AuditLogger.Durability durability;
+
+    @Param({"TEXT", "BINARY"})
+    public AuditLogger.Format format;
+
+    private Path dir;
+    private Claim claim;
+    private AuditLogger auditLogger;
+
+    @Setup(Level.Trial)
+    public void createDir() throws Exception {
+        dir = Files.createTempDirectory("audit-bench");
+        claim = Workloads.claims(1, 1, 0, 0).get(0);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        Path log = dir.resolve("audit.log");
+        Files.deleteIfExists(log);
+        auditLogger = new AuditLogger(log, format, durability, 100, new AuditHistory(10_000, 0));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void logEvent() throws Exception {
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            String name = "Worker-" + (t + 1);
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < EVENTS / threads; i++) {
+                    auditLogger.logEvent(claim, name, "IN_PROGRESS", "APPROVED", 1);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread t : workers) t.join();
+        auditLogger.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDir() throws Exception {
+        Workloads.delete(dir);
+    }
+}
@@ -0,0 +1,77 @@
+package com.claims.bench;
+
+import com.claims.AuditLogger;
+import com.claims.ClaimBacklog;
+import com.claims.model.Claim;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Single-threaded backlog paths over CLAIMS claims on 5000 policies: draining a filled backlog
+// through pollNext / complete, and filling an empty one with putAll in batches of 256.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BacklogBenchmark {
+    private static final int CLAIMS = 200_000;
+
+    @Param({"uniform", "hot"})
+    public String skew;
+
+    @Param({"0", "20"})
+    public int urgentPct;
+
+    private Path dir;
+    private AuditLogger auditLogger;
+    private ClaimBacklog backlog;
+    private List<Claim> load;
+
+    @Setup(Level.Trial)
+    public void createDir() throws Exception {
+        dir = Files.createTempDirectory("backlog-bench");
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp(BenchmarkParams params) throws Exception {
+        auditLogger = new AuditLogger(dir.resolve("backlog.log"));
+        backlog = new ClaimBacklog(Integer.MAX_VALUE, auditLogger);
+        load = Workloads.claims(CLAIMS, 5000, urgentPct, Workloads.hotPct(skew));
+        // drain starts from a full backlog, filled untimed
+        if (params.getBenchmark().endsWith(".drain")) backlog.putAll(load);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLAIMS)
+    public long drain() throws Exception {
+        long done = 0;
+        Claim claim;
+        while ((claim = backlog.pollNext()) != null) {
+            backlog.complete(claim);
+            done++;
+        }
+        return done;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLAIMS)
+    public void putAll() throws Exception {
+        for (int i = 0; i < CLAIMS; i += 256) backlog.putAll(load.subList(i, Math.min(CLAIMS, i + 256)));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        auditLogger.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDir() throws Exception {
+        Workloads.delete(dir);
+    }
+}
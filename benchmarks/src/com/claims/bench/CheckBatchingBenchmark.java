@@ -0,0 +1,75 @@
+package com.claims.bench;
+
+import com.claims.Config;
+import com.claims.ExternalCheck;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+// End to end with coalesced external checks: virtual workers with up to 1000 claims in flight,
+// each downstream call taking latencyMs whatever the number of claims in it.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CheckBatchingBenchmark {
+    private static final int CLAIMS = 20_000;
+
+    @Param({"1", "16", "128"})
+    public int batchSize;
+
+    @Param({"1", "5"})
+    public int lingerMs;
+
+    @Param({"5"})
+    public int latencyMs;
+
+    @Param({"uniform"})
+    public String skew;
+
+    @Param({"20"})
+    public int urgentPct;
+
+    private Path dir;
+    private Config config;
+    private Workloads.SchedulerRun run;
+
+    @Setup(Level.Trial)
+    public void createDir() throws Exception {
+        dir = Files.createTempDirectory("batching-bench");
+        Properties props = new Properties();
+        props.setProperty("workerMode", Config.WorkerMode.VIRTUAL.name());
+        props.setProperty("maxInFlightClaims", "1000");
+        config = Workloads.config(dir, 16, props);
+        ExternalCheck.setSimulatedLatencyMs(latencyMs);
+        ExternalCheck.setBatching(batchSize, lingerMs);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        run = new Workloads.SchedulerRun(config, Workloads.claims(CLAIMS, 5000, urgentPct, Workloads.hotPct(skew)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLAIMS)
+    public void run() throws Exception {
+        run.run();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        run.stop();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDir() throws Exception {
+        ExternalCheck.setSimulatedLatencyMs(0);
+        ExternalCheck.setBatching(1, 0);
+        Workloads.delete(dir);
+    }
+}
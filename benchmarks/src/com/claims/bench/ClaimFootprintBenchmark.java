@@ -0,0 +1,91 @@
+package com.claims.bench;
+
+import com.claims.AuditHistory;
+import com.claims.AuditLogger;
+import com.claims.ClaimBacklog;
+import com.claims.ClaimCsvParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Heap retained per queued claim: parses a generated claims file into an unbounded backlog and
+// compares the heap after a full GC before and after. The score is the time to parse and queue the
+// file; the retained bytes per claim over the measured iterations are printed after each trial.
+// -prof gc reports the allocation rate instead, which includes garbage.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ClaimFootprintBenchmark {
+    @Param({"1000000"})
+    public int claims;
+
+    @Param({"100000"})
+    public int policies;
+
+    private Path dir;
+    private Path csv;
+    private AuditLogger auditLogger;
+    private ClaimBacklog backlog;
+    private long heapBefore;
+    private double bytesPerClaim;
+    private int measured;
+
+    @Setup(Level.Trial)
+    public void generate() throws Exception {
+        dir = Files.createTempDirectory("footprint-bench");
+        csv = dir.resolve("claims.csv");
+        ClaimsCsvGenerator.generate(csv, claims, policies, 20, 42);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        // No audit history, so only the backlog retains claims
+        auditLogger = new AuditLogger(dir.resolve("footprint.log"), AuditLogger.Format.BINARY,
+                AuditLogger.Durability.BATCH, 1000, new AuditHistory(0, 0));
+        backlog = new ClaimBacklog(Integer.MAX_VALUE, auditLogger);
+        heapBefore = usedHeap();
+    }
+
+    @Benchmark
+    public void parseAndQueue() throws Exception {
+        new ClaimCsvParser().parseFile(csv, claim -> {
+            backlog.put(claim);
+            return true;
+        });
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown(IterationParams params) throws Exception {
+        auditLogger.close();
+        long retained = usedHeap() - heapBefore;
+        if (params.getType() == IterationType.MEASUREMENT) {
+            bytesPerClaim += (double) retained / backlog.size();
+            measured++;
+        }
+        backlog = null;
+        Files.deleteIfExists(dir.resolve("footprint.log"));
+    }
+
+    @TearDown(Level.Trial)
+    public void report() throws Exception {
+        System.out.printf("%d claims queued on %d policies: %.1f heap bytes per claim%n", claims, policies,
+                bytesPerClaim / measured);
+        Workloads.delete(dir);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
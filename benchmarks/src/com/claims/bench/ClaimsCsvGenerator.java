@@ -0,0 +1,60 @@
+package com.claims.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+// Writes a synthetic claims.csv in the same layout as the sample file. hotPct of the rows go to
+// HOT_POLICIES policies, the rest are spread uniformly.
+// Usage: ClaimsCsvGenerator <out.csv> [rows=1000000] [policies=100000] [urgentPct=20] [hotPct=0]
+public class ClaimsCsvGenerator {
+    private static final String[] TYPES = { "Health", "Accident", "Fire", "Theft" };
+    static final int HOT_POLICIES = 5;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ClaimsCsvGenerator <out.csv> [rows] [policies] [urgentPct] [hotPct]");
+            System.exit(1);
+        }
+        long rows = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+        int policies = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        int urgentPct = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        int hotPct = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+        generate(Path.of(args[0]), rows, policies, urgentPct, hotPct, 42);
+    }
+
+    public static void generate(Path out, long rows, int policies, int urgentPct, long seed) throws IOException {
+        generate(out, rows, policies, urgentPct, 0, seed);
+    }
+
+    public static void generate(Path out, long rows, int policies, int urgentPct, int hotPct, long seed)
+            throws IOException {
+        Random random = new Random(seed);
+        LocalDateTime base = LocalDateTime.of(2025, 8, 1, 0, 0);
+        try (BufferedWriter w = Files.newBufferedWriter(out)) {
+            w.write("ClaimID,PolicyNumber,ClaimAmount,ClaimType,Timestamp,PriorityFlag");
+            w.newLine();
+            StringBuilder sb = new StringBuilder(80);
+            for (long i = 1; i <= rows; i++) {
+                sb.setLength(0);
+                sb.append('C').append(i).append(',')
+                        .append('P').append(policy(random, policies, hotPct)).append(',')
+                        .append(1000 + random.nextInt(499_000)).append(',')
+                        .append(TYPES[random.nextInt(TYPES.length)]).append(',')
+                        .append(base.plusMinutes(random.nextInt(60 * 24 * 30))).append(":00,")
+                        .append(random.nextInt(100) < urgentPct ? "URGENT" : "NORMAL");
+                w.write(sb.toString());
+                w.newLine();
+            }
+        }
+    }
+
+    // Policy number for one row; the hot policies are the first HOT_POLICIES numbers
+    static int policy(Random random, int policies, int hotPct) {
+        if (hotPct > 0 && random.nextInt(100) < hotPct) return 1000 + random.nextInt(HOT_POLICIES);
+        return 1000 + random.nextInt(policies);
+    }
+}
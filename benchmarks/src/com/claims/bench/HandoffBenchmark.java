@@ -0,0 +1,130 @@
+package com.claims.bench;
+
+import com.claims.AuditLogger;
+import com.claims.ClaimBacklog;
+import com.claims.LatencyHistogram;
+import com.claims.model.Claim;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Put-to-pickup latency of a trickle of claims (bursts of 32 every 20 ms over 200 policies) into a
+// small backlog, served by workers doing 0.2 ms of work per claim. sleep-poll is the old handoff
+// (sleep 50 ms while full, 25 ms when idle), blocking is put/take. After each trial prints the
+// latency percentiles over the measured iterations.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class HandoffBenchmark {
+    private static final int CLAIMS = 1_000;
+
+    @Param({"sleep-poll", "blocking"})
+    public String mode;
+
+    @Param({"4"})
+    public int workers;
+
+    @Param({"8"})
+    public int capacity;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private Path dir;
+    private AuditLogger auditLogger;
+    private ClaimBacklog backlog;
+    private long[] putAt;
+
+    @Setup(Level.Trial)
+    public void createDir() throws Exception {
+        dir = Files.createTempDirectory("handoff-bench");
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        auditLogger = new AuditLogger(dir.resolve("handoff.log"));
+        backlog = new ClaimBacklog(capacity, auditLogger);
+        putAt = new long[CLAIMS];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLAIMS)
+    public void handoff() throws Exception {
+        boolean blocking = mode.equals("blocking");
+        Thread[] threads = new Thread[workers];
+        for (int w = 0; w < workers; w++) {
+            threads[w] = new Thread(() -> serve(blocking));
+            threads[w].start();
+        }
+
+        Random random = new Random(7);
+        for (int i = 0; i < CLAIMS; i++) {
+            Claim claim = new Claim("C" + i, "P" + random.nextInt(200), i, Claim.Type.FIRE, 1_754_006_400L,
+                    Claim.Priority.NORMAL);
+            if (!blocking) {
+                while (backlog.size() >= capacity) Thread.sleep(50);
+            }
+            putAt[i] = System.nanoTime();
+            backlog.put(claim);
+            if (i % 32 == 31) Thread.sleep(20);
+        }
+
+        if (blocking) {
+            backlog.closeIntake();
+        } else {
+            while (backlog.size() > 0) Thread.sleep(5);
+            Thread.sleep(100);
+            for (Thread t : threads) t.interrupt();
+        }
+        for (Thread t : threads) t.join();
+    }
+
+    private void serve(boolean blocking) {
+        try {
+            while (true) {
+                Claim claim;
+                if (blocking) {
+                    claim = backlog.take();
+                    if (claim == null) return;
+                } else {
+                    claim = backlog.pollNext();
+                    if (claim == null) {
+                        if (Thread.currentThread().isInterrupted()) return;
+                        Thread.sleep(25);
+                        continue;
+                    }
+                }
+                latency.recordNanos(System.nanoTime() - putAt[claim.claimAmount]);
+                LockSupport.parkNanos(200_000);
+                backlog.complete(claim);
+            }
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown(IterationParams params) {
+        auditLogger.close();
+        // Warmup latencies are not reported
+        if (params.getType() == IterationType.WARMUP) latency.copyTo(new long[LatencyHistogram.BUCKETS], true);
+    }
+
+    @TearDown(Level.Trial)
+    public void report() throws Exception {
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        latency.copyTo(counts, true);
+        System.out.printf("put-to-pickup ms, mode=%s: p50 %.2f p90 %.2f p99 %.2f max %.2f%n", mode,
+                LatencyHistogram.percentileMicros(counts, 0.5) / 1000.0,
+                LatencyHistogram.percentileMicros(counts, 0.9) / 1000.0,
+                LatencyHistogram.percentileMicros(counts, 0.99) / 1000.0,
+                LatencyHistogram.percentileMicros(counts, 1.0) / 1000.0);
+        Workloads.delete(dir);
+    }
+}
@@ -0,0 +1,52 @@
+package com.claims.bench;
+
+import com.claims.ClaimIdempotencyTracker;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Marks and completes IDS claim IDs, then checks each again as a duplicate, with the tracker in
+// heap or file-backed mode. With -prof gc, gc.alloc.rate.norm shows the bytes allocated per ID.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class IdempotencyBenchmark {
+    private static final int IDS = 1_000_000;
+
+    @Param({"heap", "mapped"})
+    public String store;
+
+    private Path dir;
+    private ClaimIdempotencyTracker tracker;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("idempotency-bench");
+        tracker = new ClaimIdempotencyTracker(store.equals("mapped") ? dir.resolve("processed.ids") : null, IDS, 10);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2 * IDS)
+    public long markAndCheck() {
+        for (int i = 0; i < IDS; i++) {
+            String id = "C" + i;
+            if (tracker.markProcessing(id)) tracker.complete(id);
+        }
+        long duplicates = 0;
+        for (int i = 0; i < IDS; i++) {
+            if (!tracker.markProcessing("C" + i)) duplicates++;
+        }
+        return duplicates;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        tracker.close();
+        Workloads.delete(dir);
+    }
+}
@@ -0,0 +1,98 @@
+package com.claims.bench;
+
+import com.claims.BacklogJournal;
+import com.claims.model.Claim;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// journal: admits CLAIMS claims in batches of 256 and takes and finishes all but livePct% of
+// them, through segment rotation and compaction. recover: reopens a journal left that way.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JournalBenchmark {
+    private static final int CLAIMS = 500_000;
+
+    @Param({"5"})
+    public int livePct;
+
+    @Param({"16"})
+    public int segmentMB;
+
+    private Path dir;
+    private Path recoverDir;
+    private BacklogJournal journal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // A fixed journal for recover to reopen
+        recoverDir = Files.createTempDirectory("journal-recover");
+        BacklogJournal written = new BacklogJournal(recoverDir, segmentMB * 1024L * 1024, false);
+        written.recover();
+        write(written);
+        written.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void open() throws Exception {
+        dir = Files.createTempDirectory("journal-bench");
+        journal = new BacklogJournal(dir, segmentMB * 1024L * 1024, false);
+        journal.recover();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLAIMS)
+    public void journal() {
+        write(journal);
+    }
+
+    @Benchmark
+    public List<Claim> recover() throws Exception {
+        BacklogJournal reopened = new BacklogJournal(recoverDir, segmentMB * 1024L * 1024, false);
+        List<Claim> recovered = reopened.recover();
+        reopened.close();
+        return recovered;
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() throws Exception {
+        journal.close();
+        Workloads.delete(dir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Workloads.delete(recoverDir);
+    }
+
+    private void write(BacklogJournal target) {
+        List<Claim> batch = new ArrayList<>(256);
+        for (int i = 0; i < CLAIMS; i++) {
+            batch.add(new Claim("C" + i, "P" + (i % 50_000), 1000, Claim.Type.FIRE, 1_754_006_400L,
+                    i % 5 == 0 ? Claim.Priority.URGENT : Claim.Priority.NORMAL));
+            if (batch.size() == 256) {
+                finish(target, batch);
+                batch.clear();
+            }
+        }
+        finish(target, batch);
+    }
+
+    // Admits the batch, then takes and completes all but livePct% of it
+    private void finish(BacklogJournal target, List<Claim> batch) {
+        target.admit(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            if ((i * 100 / batch.size()) < livePct) continue;
+            target.taken(batch.get(i));
+            target.done(batch.get(i));
+        }
+    }
+}
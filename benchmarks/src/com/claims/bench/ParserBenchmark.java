@@ -0,0 +1,51 @@
+package com.claims.bench;
+
+import com.claims.ClaimCsvParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Parses a generated file of ROWS claims, on one thread or split into 8 MB chunks.
+// With -prof gc, gc.alloc.rate.norm shows the bytes allocated per claim.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ParserBenchmark {
+    private static final int ROWS = 500_000;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private Path dir;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("parser-bench");
+        file = dir.resolve("claims.csv");
+        ClaimsCsvGenerator.generate(file, ROWS, 100_000, 20, 42);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long parseFile() throws Exception {
+        long[] count = new long[1];
+        ClaimCsvParser.Sink sink = claim -> {
+            count[0]++;
+            return true;
+        };
+        if (parallelism == 1) new ClaimCsvParser().parseFile(file, sink);
+        else ClaimCsvParser.parseFileParallel(file, parallelism, 8 * 1024 * 1024, sink);
+        return count[0];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Workloads.delete(dir);
+    }
+}
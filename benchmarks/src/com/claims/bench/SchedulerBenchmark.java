@@ -0,0 +1,72 @@
+package com.claims.bench;
+
+import com.claims.Config;
+import com.claims.ExternalCheck;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+// End to end: workers start on a backlog of CLAIMS claims over 5000 policies and the time runs
+// until the last claim is finished. latencyMs is the simulated external check latency.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SchedulerBenchmark {
+    private static final int CLAIMS = 2_000;
+
+    @Param({"FIXED", "VIRTUAL", "SHARDED"})
+    public Config.WorkerMode mode;
+
+    @Param({"4", "16"})
+    public int workers;
+
+    @Param({"0", "5"})
+    public int latencyMs;
+
+    @Param({"uniform", "hot"})
+    public String skew;
+
+    @Param({"20"})
+    public int urgentPct;
+
+    private Path dir;
+    private Config config;
+    private Workloads.SchedulerRun run;
+
+    @Setup(Level.Trial)
+    public void createDir() throws Exception {
+        dir = Files.createTempDirectory("scheduler-bench");
+        Properties props = new Properties();
+        props.setProperty("workerMode", mode.name());
+        config = Workloads.config(dir, workers, props);
+        ExternalCheck.setSimulatedLatencyMs(latencyMs);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        run = new Workloads.SchedulerRun(config, Workloads.claims(CLAIMS, 5000, urgentPct, Workloads.hotPct(skew)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLAIMS)
+    public void run() throws Exception {
+        run.run();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        run.stop();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDir() throws Exception {
+        ExternalCheck.setSimulatedLatencyMs(0);
+        Workloads.delete(dir);
+    }
+}
@@ -0,0 +1,100 @@
+package com.claims.bench;
+
+import com.claims.*;
+import com.claims.model.Claim;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+// An URGENT burst: the backlog starts with urgentPct% URGENT claims, served by 4 workers with a
+// 1 ms check. After each trial prints the backlog wait percentiles of each priority over the
+// measured iterations, which is what the policies differ in.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SchedulingBenchmark {
+    private static final int CLAIMS = 2_000;
+
+    @Param({"STRICT", "WFQ", "AGING", "EDF"})
+    public Config.Scheduling policy;
+
+    @Param({"4"})
+    public int workers;
+
+    @Param({"1"})
+    public int latencyMs;
+
+    @Param({"uniform"})
+    public String skew;
+
+    @Param({"80"})
+    public int urgentPct;
+
+    private Path dir;
+    private Config config;
+    private Workloads.SchedulerRun run;
+
+    @Setup(Level.Trial)
+    public void createDir() throws Exception {
+        dir = Files.createTempDirectory("scheduling-bench");
+        Properties props = new Properties();
+        props.setProperty("schedulingPolicy", policy.name());
+        props.setProperty("schedulingAgingMs", "100");
+        config = Workloads.config(dir, workers, props);
+        ExternalCheck.setSimulatedLatencyMs(latencyMs);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        run = new Workloads.SchedulerRun(config, Workloads.claims(CLAIMS, 5000, urgentPct, Workloads.hotPct(skew)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLAIMS)
+    public void run() throws Exception {
+        run.run();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown(IterationParams params) {
+        run.stop();
+        // Warmup waits are not reported
+        if (params.getType() == IterationType.WARMUP) {
+            for (Claim.Priority priority : Claim.Priority.values()) resetWait(priority);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() throws Exception {
+        StringBuilder line = new StringBuilder("backlog wait ms, policy=" + policy + ":");
+        for (Claim.Priority priority : Claim.Priority.values()) {
+            long[] counts = resetWait(priority);
+            line.append(String.format("  %s p50 %d p99 %d max %d", priority,
+                    LatencyHistogram.percentileMicros(counts, 0.5) / 1000,
+                    LatencyHistogram.percentileMicros(counts, 0.99) / 1000,
+                    LatencyHistogram.percentileMicros(counts, 1.0) / 1000));
+        }
+        System.out.println(line);
+        ExternalCheck.setSimulatedLatencyMs(0);
+        Workloads.delete(dir);
+    }
+
+    // The wait counts of every class of the priority, summed, clearing them
+    private static long[] resetWait(Claim.Priority priority) {
+        long[] total = new long[LatencyHistogram.BUCKETS];
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        for (Claim.Type type : Claim.Type.values()) {
+            Metrics.backlogWait(priority, type).copyTo(counts, true);
+            for (int i = 0; i < counts.length; i++) total[i] += counts[i];
+        }
+        return total;
+    }
+}
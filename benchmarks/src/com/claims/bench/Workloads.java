@@ -0,0 +1,79 @@
+package com.claims.bench;
+
+import com.claims.*;
+import com.claims.model.Claim;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+// Shared fixtures. Skew "hot" puts 80% of claims on ClaimsCsvGenerator.HOT_POLICIES policies.
+final class Workloads {
+    private Workloads() {}
+
+    static int hotPct(String skew) {
+        return skew.equals("hot") ? 80 : 0;
+    }
+
+    // Same distribution as ClaimsCsvGenerator, built in memory; claims are mutated while processed,
+    // so every iteration needs its own
+    static List<Claim> claims(int n, int policies, int urgentPct, int hotPct) {
+        Random random = new Random(42);
+        List<Claim> claims = new ArrayList<>(n);
+        long epochSecond = 1_754_006_400L;
+        for (int i = 0; i < n; i++) {
+            int policy = ClaimsCsvGenerator.policy(random, policies, hotPct);
+            Claim.Priority prio = random.nextInt(100) < urgentPct ? Claim.Priority.URGENT : Claim.Priority.NORMAL;
+            claims.add(new Claim("C" + i, "P" + policy, 1000 + random.nextInt(499_000), Claim.Type.FIRE,
+                    epochSecond + random.nextInt(60 * 24 * 30) * 60L, prio));
+        }
+        return claims;
+    }
+
+    // Config for an end-to-end run writing into dir, with short retry backoff
+    static Config config(Path dir, int workers, Properties props) {
+        props.setProperty("retryBaseDelayMs", "1");
+        props.setProperty("retryMaxDelayMs", "10");
+        return new Config(workers, Integer.MAX_VALUE, 60_000, 3, 30, 5,
+                dir.resolve("claims.csv"), dir.resolve("audit.log"), dir.resolve("summary.txt"), props);
+    }
+
+    static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) return;
+        try (var files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted((a, b) -> b.compareTo(a))::iterator) Files.delete(p);
+        }
+    }
+
+    // A scheduler over a filled backlog. run() starts it and waits for the last claim; stop()
+    // releases its threads and files, and must be called once per run.
+    static final class SchedulerRun {
+        private final AuditLogger auditLogger;
+        private final ClaimBacklog backlog;
+        private final PolicySerialScheduler scheduler;
+
+        SchedulerRun(Config config, List<Claim> claims) throws IOException, InterruptedException {
+            auditLogger = new AuditLogger(config.getAuditLogPath());
+            backlog = new ClaimBacklog(config.getBacklogCapacity(), auditLogger, null,
+                    config.getBacklogShards(), SchedulingPolicy.of(config));
+            scheduler = new PolicySerialScheduler(backlog, new ClaimIdempotencyTracker(), auditLogger,
+                    new SummaryReport(config.getSummaryReportPath()), config);
+            backlog.putAll(claims);
+        }
+
+        void run() throws InterruptedException {
+            scheduler.startWorkers();
+            backlog.closeIntake();
+            scheduler.awaitFinish();
+        }
+
+        void stop() {
+            scheduler.shutdown();
+            auditLogger.close();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.claims;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Limits the rate at which ingestion admits claims and tunes that rate with AIMD. Every interval
+// it looks at backlog depth, the queueing delay that depth implies at the current check rate
+// (Little's law), p99 external check latency and the transient error ratio of the checks
+// finished in that interval. If any is over its target the rate is cut by decreaseFactor,
+// otherwise it grows by increaseStep, so intake settles just below what the workers sustain
+// instead of filling the backlog and waiting on it. Thread safe.
+public class AdmissionController implements Runnable {
+    private static final long INTERVAL_MS = 100;
+
+    private final ClaimBacklog backlog;
+    private final int capacity;
+    private final double minRate;
+    private final double maxRate;
+    private final double increaseStep;
+    private final double decreaseFactor;
+    private final double targetDepth;
+    private final long queueDelayTargetMicros;
+    private final long latencyTargetMicros;
+    private final double maxErrorRatio;
+
+    private final LatencyHistogram checkLatency = new LatencyHistogram();
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private volatile double rate;
+    private volatile double lowestRate;
+    private volatile long decreases;
+    private volatile boolean stopped = false;
+
+    // Token bucket, guarded by this
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+
+    public AdmissionController(ClaimBacklog backlog, Config config) {
+        this.backlog = backlog;
+        this.capacity = config.getBacklogCapacity();
+        this.minRate = config.getAdmissionMinRate();
+        this.maxRate = Math.max(minRate, config.getAdmissionMaxRate());
+        this.increaseStep = config.getAdmissionIncreaseStep();
+        this.decreaseFactor = config.getAdmissionDecreaseFactor();
+        this.targetDepth = config.getAdmissionTargetDepth();
+        this.queueDelayTargetMicros = TimeUnit.MILLISECONDS.toMicros(config.getAdmissionQueueDelayTargetMs());
+        this.latencyTargetMicros = TimeUnit.MILLISECONDS.toMicros(config.getAdmissionLatencyTargetMs());
+        this.maxErrorRatio = config.getAdmissionMaxErrorRatio();
+        this.rate = maxRate;
+        this.lowestRate = maxRate;
+        this.tokens = burst();
+    }
+
+    public void stop() { stopped = true; }
+
+    // Called by workers after every external check
+    public void recordCheck(long nanos, ExternalCheck.Result result) {
+        checkLatency.recordNanos(nanos);
+        checks.increment();
+        if (result == ExternalCheck.Result.TRANSIENT_ERROR || result == ExternalCheck.Result.TIMEOUT) {
+            errors.increment();
+        }
+    }
+
+    // Takes a permit for one claim if one is available now
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) return false;
+        tokens--;
+        return true;
+    }
+
+    // Blocks until a permit for one claim is available
+    public synchronized void acquire() throws InterruptedException {
+        while (!tryAcquire()) {
+            long waitNanos = (long) ((1 - tokens) / rate * 1e9);
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 50_000));
+        }
+    }
+
+    public double getRate() { return rate; }
+    public double getLowestRate() { return lowestRate; }
+    public long getDecreaseCount() { return decreases; }
+
+    @Override
+    public void run() {
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        while (!stopped) {
+            try {
+                Thread.sleep(INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            checkLatency.copyTo(counts, true);
+            adjust(backlog.size(), LatencyHistogram.percentileMicros(counts, 0.99), checks.sumThenReset(),
+                    errors.sumThenReset());
+        }
+    }
+
+    private void adjust(int queued, long p99Micros, long checked, long failed) {
+        // With no checks finishing, any queue counts as delayed
+        long queueDelayMicros = checked > 0 ? queued * TimeUnit.MILLISECONDS.toMicros(INTERVAL_MS) / checked
+                : queued > 0 ? Long.MAX_VALUE : 0;
+        boolean overloaded = queued >= targetDepth * capacity
+                || queueDelayMicros > queueDelayTargetMicros
+                || (checked > 0 && p99Micros > latencyTargetMicros)
+                || (checked > 0 && failed > maxErrorRatio * checked);
+        double next = overloaded ? Math.max(minRate, rate * decreaseFactor) : Math.min(maxRate, rate + increaseStep);
+        if (overloaded) decreases++;
+        rate = next;
+        if (next < lowestRate) lowestRate = next;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst(), tokens + (now - lastRefill) / 1e9 * rate);
+        lastRefill = now;
+    }
+
+    // One interval's worth of claims may be admitted at once
+    private double burst() {
+        return Math.max(1, rate * INTERVAL_MS / 1000);
+    }
+}
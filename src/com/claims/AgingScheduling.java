@@ -0,0 +1,50 @@
+package com.claims;
+
+import com.claims.model.Claim;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+// Strict priority with age-based promotion: once the first ready NORMAL claim has waited agingMs
+// since it was queued, it is served ahead of URGENT claims. Under a sustained URGENT burst a
+// NORMAL claim therefore waits about agingMs plus the backlog ahead of it in its own priority.
+public class AgingScheduling implements SchedulingPolicy {
+    private final long agingNanos;
+
+    public AgingScheduling(long agingMs) {
+        this.agingNanos = TimeUnit.MILLISECONDS.toNanos(agingMs);
+    }
+
+    @Override
+    public ReadySet newReadySet() {
+        return new ReadySet() {
+            private final ArrayDeque<ClaimBacklog.ReadySlot> urgent = new ArrayDeque<>();
+            private final ArrayDeque<ClaimBacklog.ReadySlot> normal = new ArrayDeque<>();
+
+            @Override
+            public void add(ClaimBacklog.ReadySlot slot) {
+                (slot.priority == Claim.Priority.URGENT ? urgent : normal).addLast(slot);
+            }
+
+            @Override
+            public ClaimBacklog.ReadySlot poll(long nowNanos) {
+                ClaimBacklog.ReadySlot oldest = normal.peekFirst();
+                if (oldest != null && !urgent.isEmpty()) {
+                    // A stale slot is handed out too, for the shard to discard, so it cannot hide
+                    // an aged slot behind it. Ownership is tested before the slot's queue is read.
+                    if (!oldest.isStale() && !oldest.isBusy()) {
+                        Claim head = oldest.head();
+                        if (head != null && nowNanos - head.queuedAtNanos < agingNanos) return urgent.pollFirst();
+                    }
+                }
+                return oldest != null ? normal.pollFirst() : urgent.pollFirst();
+            }
+
+            @Override
+            public ClaimBacklog.ReadySlot pollLast() {
+                ClaimBacklog.ReadySlot slot = urgent.pollLast();
+                return slot != null ? slot : normal.pollLast();
+            }
+        };
+    }
+}
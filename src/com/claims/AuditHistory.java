@@ -0,0 +1,115 @@
+package com.claims;
+
+import com.claims.model.Claim;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Bounded per-claim audit history. Events are packed into two longs each, with thread names and
+// statuses dictionary-encoded, and claims are evicted oldest-first beyond maxClaims or, if
+// windowSeconds > 0, once their last event is older than the window. Thread safe.
+public class AuditHistory {
+    private static final int MAX_EVENTS_PER_CLAIM = 64;
+    // Statuses need 12 bits; names past the cap (e.g. per-claim virtual thread names) share one code
+    private static final int MAX_NAMES = 4096;
+    private static final String OTHER = "<other>";
+
+    private final int maxClaims;
+    private final long windowMicros;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Insertion order == order of each claim's latest event, since record() re-inserts the entry
+    private final LinkedHashMap<String, ClaimEvents> claims = new LinkedHashMap<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    public AuditHistory(int maxClaims, int windowSeconds) {
+        this.maxClaims = maxClaims;
+        this.windowMicros = TimeUnit.SECONDS.toMicros(windowSeconds);
+        code(OTHER);
+    }
+
+    public synchronized void record(Instant time, String claimId, String policyNumber, Claim.Priority priority,
+                                    String threadName, String prevStatus, String newStatus, int attempt) {
+        if (maxClaims <= 0) return;
+        long micros = TimeUnit.SECONDS.toMicros(time.getEpochSecond()) + time.getNano() / 1000;
+        ClaimEvents events = claims.remove(claimId);
+        if (events == null) events = new ClaimEvents(policyNumber, priority);
+        claims.put(claimId, events);
+        events.add(micros, ((long) code(threadName) << 40) | ((long) code(prevStatus) << 28)
+                | ((long) code(newStatus) << 16) | (attempt & 0xFFFF));
+        evict(micros);
+    }
+
+    // Audit lines for a claim, oldest first, in the audit.log layout; empty if unknown or evicted
+    public synchronized List<String> lookup(String claimId) {
+        ClaimEvents events = claims.get(claimId);
+        if (events == null) return List.of();
+        List<String> lines = new ArrayList<>(events.count);
+        for (int i = 0; i < events.count; i++) {
+            long micros = events.data[2 * i];
+            long packed = events.data[2 * i + 1];
+            Instant time = Instant.ofEpochSecond(micros / 1_000_000, (micros % 1_000_000) * 1000);
+            lines.add(LocalDateTime.ofInstant(time, zone) + "," + claimId + ","
+                    + names.get((int) (packed >>> 40)) + ","
+                    + names.get((int) ((packed >>> 28) & 0xFFF)) + ","
+                    + names.get((int) ((packed >>> 16) & 0xFFF)) + ","
+                    + events.policyNumber + "," + events.priority.name() + ","
+                    + (packed & 0xFFFF));
+        }
+        return lines;
+    }
+
+    public synchronized int claimCount() { return claims.size(); }
+
+    private void evict(long nowMicros) {
+        Iterator<ClaimEvents> it = claims.values().iterator();
+        while (it.hasNext()) {
+            ClaimEvents oldest = it.next();
+            boolean expired = windowMicros > 0 && nowMicros - oldest.lastMicros() > windowMicros;
+            if (claims.size() <= maxClaims && !expired) break;
+            it.remove();
+        }
+    }
+
+    private int code(String name) {
+        Integer c = codes.get(name);
+        if (c == null) {
+            if (names.size() == MAX_NAMES) return codes.get(OTHER);
+            c = names.size();
+            names.add(name);
+            codes.put(name, c);
+        }
+        return c;
+    }
+
+    private static final class ClaimEvents {
+        final String policyNumber;
+        final Claim.Priority priority;
+        long[] data = new long[8];
+        int count;
+
+        ClaimEvents(String policyNumber, Claim.Priority priority) {
+            this.policyNumber = policyNumber;
+            this.priority = priority;
+        }
+
+        void add(long micros, long packed) {
+            if (count == MAX_EVENTS_PER_CLAIM) {
+                // Keep the most recent events of a runaway claim
+                System.arraycopy(data, 2, data, 0, data.length - 2);
+                count--;
+            } else if (2 * count == data.length) {
+                data = Arrays.copyOf(data, Math.min(data.length * 2, 2 * MAX_EVENTS_PER_CLAIM));
+            }
+            data[2 * count] = micros;
+            data[2 * count + 1] = packed;
+            count++;
+        }
+
+        long lastMicros() { return data[2 * (count - 1)]; }
+    }
+}
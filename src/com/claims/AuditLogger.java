@@ -3,51 +3,284 @@ package com.claims;
 import com.claims.model.Claim;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
-// Thread safe
+// Thread safe. Workers enqueue events without locking; a single writer thread formats them
+// and writes them in batches (group commit) through a FileChannel. The queue is bounded: once
+// queueCapacity events wait to be written, logging blocks, so a slow disk slows the workers
+// down instead of filling the heap.
 public class AuditLogger {
-    private final BufferedWriter writer;
-    private final ReentrantLock lock = new ReentrantLock();
-    private final Map<String, List<String>> inMemoryHistory = new ConcurrentHashMap<>();
+    // BATCH: write each batch to the OS, no fsync. INTERVAL: also fsync at most every fsyncIntervalMs.
+    // EVENT: fsync every batch, and logEvent returns only once its event is on disk.
+    public enum Durability { BATCH, INTERVAL, EVENT }
+    // TEXT: one CSV line per event. BINARY: length-prefixed records, see BinaryAuditReader.
+    public enum Format { TEXT, BINARY }
+
+    private static final int MAX_BATCH = 1024;
+    private static final int DEFAULT_QUEUE_CAPACITY = 1 << 16;
+
+    private final FileChannel channel;
+    private final Format format;
+    private final Durability durability;
+    private final long fsyncIntervalNanos;
+    private final ConcurrentLinkedQueue<Event> queue = new ConcurrentLinkedQueue<>();
+    // One permit per event that may be queued or written but not yet committed
+    private final Semaphore space;
+    private final Thread writerThread;
+    private volatile boolean writerWaiting = false;
+    private volatile boolean closed = false;
+
+    // Writer thread only
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+    private final StringBuilder line = new StringBuilder(128);
+    private final BinaryAuditReader.Encoder encoder = new BinaryAuditReader.Encoder();
+    private final List<Event> uncommitted = new ArrayList<>();
+    private final ZoneId zone = ZoneId.systemDefault();
+    private long lastFsync = System.nanoTime();
+    private boolean unsynced = false;
+
+    private final AuditHistory history;
 
     public AuditLogger(Path logPath) throws IOException {
-        this.writer = new BufferedWriter(new FileWriter(logPath.toFile(), true));
+        this(logPath, Format.TEXT, Durability.BATCH, 1000, new AuditHistory(10_000, 0));
+    }
+
+    public AuditLogger(Path logPath, Format format, Durability durability, int fsyncIntervalMs,
+                       AuditHistory history) throws IOException {
+        this(logPath, format, durability, fsyncIntervalMs, DEFAULT_QUEUE_CAPACITY, history);
+    }
+
+    public AuditLogger(Path logPath, Format format, Durability durability, int fsyncIntervalMs, int queueCapacity,
+                       AuditHistory history) throws IOException {
+        this.channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.format = format;
+        if (format == Format.BINARY) {
+            if (channel.size() == 0) buffer.put(BinaryAuditReader.MAGIC);
+            encoder.writeSession(buffer);
+        }
+        this.durability = durability;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMs);
+        this.space = new Semaphore(Math.max(1, queueCapacity));
+        this.history = history;
+        this.writerThread = new Thread(this::writeLoop, "AuditWriter");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
     }
 
     public void logEvent(Claim claim, String threadName, String prevStatus, String newStatus, int attempt) {
-        String line = String.format("%s,%s,%s,%s,%s,%s,%s,%d",
-                LocalDateTime.now().toString(),
-                claim.claimId,
-                threadName,
-                prevStatus,
-                newStatus,
-                claim.policyNumber,
-                claim.priorityFlag.name(),
-                attempt
-        );
-        lock.lock();
+        Event event = new Event(Instant.now(), claim, threadName, prevStatus, newStatus, attempt,
+                durability == Durability.EVENT ? Thread.currentThread() : null);
+        reserve();
+        queue.offer(event);
+        if (writerWaiting) LockSupport.unpark(writerThread);
+        if (event.waiter != null) {
+            while (!event.durable && !closed) LockSupport.park(this);
+        }
+    }
+
+    // One timestamp and one writer wake-up for the whole batch; under EVENT durability, waits
+    // only for the last event, since the writer commits events in queue order
+    public void logEvents(List<Claim> claims, String threadName, String prevStatus, String newStatus) {
+        if (claims.isEmpty()) return;
+        Instant now = Instant.now();
+        int lastIndex = claims.size() - 1;
+        Event last = null;
+        for (int i = 0; i <= lastIndex; i++) {
+            Claim claim = claims.get(i);
+            Thread waiter = i == lastIndex && durability == Durability.EVENT ? Thread.currentThread() : null;
+            last = new Event(now, claim, threadName, prevStatus, newStatus, claim.attempt, waiter);
+            reserve();
+            queue.offer(last);
+        }
+        if (writerWaiting) LockSupport.unpark(writerThread);
+        if (last.waiter != null) {
+            while (!last.durable && !closed) LockSupport.park(this);
+        }
+    }
+
+    // Waits while the queue is full. The writer may be parked on events offered without a wake-up
+    // yet (logEvents wakes it once, at the end), so it is woken first
+    private void reserve() {
+        if (space.tryAcquire()) return;
+        Metrics.AUDIT_QUEUE_FULL.increment();
+        LockSupport.unpark(writerThread);
+        space.acquireUninterruptibly();
+    }
+
+    public AuditHistory getHistory() {
+        return history;
+    }
+
+    // Drains every queued event, fsyncs and closes the file
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writerThread);
         try {
-            writer.write(line);
-            writer.newLine();
-            writer.flush();
-            inMemoryHistory.computeIfAbsent(claim.claimId, k -> new ArrayList<>()).add(line);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException ignored) {}
+    }
+
+    private void writeLoop() {
+        while (true) {
+            Event event = queue.poll();
+            if (event != null) {
+                append(event);
+                if (uncommitted.size() >= MAX_BATCH) commit();
+                continue;
+            }
+            // Queue drained: whatever is buffered forms one group commit
+            if (!uncommitted.isEmpty()) commit();
+            if (closed && queue.isEmpty()) return;
+            writerWaiting = true;
+            if (queue.isEmpty() && !closed) {
+                // Until the next event, or until a pending INTERVAL fsync is due
+                if (durability == Durability.INTERVAL && unsynced) {
+                    LockSupport.parkNanos(this, lastFsync + fsyncIntervalNanos - System.nanoTime());
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+            writerWaiting = false;
+            if (durability == Durability.INTERVAL) maybeFsync();
+        }
+    }
+
+    private void append(Event e) {
+        if (format == Format.BINARY) {
+            appendBinary(e);
+        } else {
+            appendText(e);
+        }
+        history.record(e.time, e.claimId, e.policyNumber, e.priority, e.threadName, e.prevStatus, e.newStatus, e.attempt);
+        uncommitted.add(e);
+    }
+
+    private void appendBinary(Event e) {
+        if (buffer.remaining() < BinaryAuditReader.Encoder.maxSize(e.threadName, e.prevStatus, e.newStatus,
+                e.claimId, e.policyNumber)) {
+            drainBuffer();
+        }
+        long micros = TimeUnit.SECONDS.toMicros(e.time.getEpochSecond()) + e.time.getNano() / 1000;
+        encoder.writeEvent(buffer, micros, e.threadName, e.prevStatus, e.newStatus, e.claimId, e.policyNumber,
+                e.priority, e.attempt);
+    }
+
+    private void appendText(Event e) {
+        line.setLength(0);
+        line.append(LocalDateTime.ofInstant(e.time, zone)).append(',')
+                .append(e.claimId).append(',')
+                .append(e.threadName).append(',')
+                .append(e.prevStatus).append(',')
+                .append(e.newStatus).append(',')
+                .append(e.policyNumber).append(',')
+                .append(e.priority.name()).append(',')
+                .append(e.attempt);
+        String text = line.toString();
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (buffer.remaining() < bytes.length + 1) drainBuffer();
+        if (bytes.length >= buffer.capacity()) {
+            writeFully(ByteBuffer.wrap(bytes));
+        } else {
+            buffer.put(bytes);
+        }
+        buffer.put((byte) '\n');
+    }
+
+    private void commit() {
+        long start = System.nanoTime();
+        drainBuffer();
+        if (durability == Durability.EVENT) {
+            fsync();
+        } else if (durability == Durability.INTERVAL) {
+            maybeFsync();
+        }
+        Metrics.AUDIT_COMMIT.recordNanos(System.nanoTime() - start);
+        Metrics.AUDIT_EVENTS.add(uncommitted.size());
+        Instant now = Instant.now();
+        for (Event e : uncommitted) {
+            Metrics.AUDIT_EVENT_LATENCY.recordMicros((now.getEpochSecond() - e.time.getEpochSecond()) * 1_000_000
+                    + (now.getNano() - e.time.getNano()) / 1000);
+            if (e.waiter != null) {
+                e.durable = true;
+                LockSupport.unpark(e.waiter);
+            }
+        }
+        space.release(uncommitted.size());
+        uncommitted.clear();
+    }
+
+    private void drainBuffer() {
+        if (buffer.position() > 0) unsynced = true;
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer src) {
+        try {
+            while (src.hasRemaining()) channel.write(src);
         } catch (IOException e) {
             System.err.println("Audit log error: " + e);
-        } finally {
-            lock.unlock();
+            src.position(src.limit());
         }
     }
 
-    public Map<String, List<String>> getInMemoryHistory() {
-        return inMemoryHistory;
+    private void maybeFsync() {
+        if (unsynced && System.nanoTime() - lastFsync >= fsyncIntervalNanos) fsync();
     }
 
-    public void close() {
-        try { writer.close(); } catch (IOException ignored) {}
+    private void fsync() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            System.err.println("Audit log error: " + e);
+        }
+        lastFsync = System.nanoTime();
+        unsynced = false;
+    }
+
+    private static final class Event {
+        final Instant time;
+        final String claimId;
+        final String policyNumber;
+        final Claim.Priority priority;
+        final String threadName;
+        final String prevStatus;
+        final String newStatus;
+        final int attempt;
+        final Thread waiter;
+        volatile boolean durable;
+
+        Event(Instant time, Claim claim, String threadName, String prevStatus, String newStatus, int attempt,
+              Thread waiter) {
+            this.time = time;
+            this.claimId = claim.claimId();
+            this.policyNumber = claim.policyNumber;
+            this.priority = claim.priorityFlag;
+            this.threadName = threadName;
+            this.prevStatus = prevStatus;
+            this.newStatus = newStatus;
+            this.attempt = attempt;
+            this.waiter = waiter;
+        }
     }
-}
\ No newline at end of file
+}
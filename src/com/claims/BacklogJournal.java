@@ -0,0 +1,568 @@
+package com.claims;
+
+import com.claims.model.Claim;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+// Write-ahead journal of the backlog, so queued and in-flight claims survive a crash. The backlog
+// records each admission (the full claim), take, retry (with its attempt count) and completion.
+// A single writer thread appends them in batches to numbered segment files, rotating at
+// segmentBytes; admit() returns once its claims are written. recover() replays the segments in
+// parallel and returns the claims still live, in admission order. Once the sealed segments grow
+// well past the live claims they hold, a compactor rewrites them as one segment of live claims,
+// so the journal stays proportional to the backlog rather than to its history. Thread safe.
+public class BacklogJournal {
+    private static final long MAGIC = 0x434C4D4A524E4C31L; // "CLMJRNL1"
+    private static final int HEADER_BYTES = 16;             // magic, first segment id this one replaces
+    private static final byte ADMIT = 1, TAKE = 2, RETRY = 3, DONE = 4;
+    // Record framing: [int payload length][payload][int CRC32C of payload]
+    private static final int FIXED_PAYLOAD = 1 + 8 + 4;     // type, key, attempt
+    private static final int MAX_STRING_BYTES = 1024;        // claim ID, policy number, unknown type
+    private static final int MAX_RECORD = 8 + FIXED_PAYLOAD + 3 * (2 + MAX_STRING_BYTES) + 4 + 1 + 8 + 1;
+    // Set on the type byte of an OTHER claim whose unknown label follows it
+    private static final int TYPE_LABEL = 0x80;
+    private static final int MAX_BATCH = 1024;
+    // Compact once sealed segments are larger than this many times the live claims
+    private static final int COMPACT_RATIO = 2;
+    private static final Claim.Type[] TYPES = Claim.Type.values();
+    private static final Claim.Priority[] PRIORITIES = Claim.Priority.values();
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final ConcurrentLinkedQueue<Op> queue = new ConcurrentLinkedQueue<>();
+    private final Thread writerThread;
+    private volatile boolean writerWaiting = false;
+    private volatile boolean closed = false;
+    // Claims admitted and not yet done
+    private final AtomicLong live = new AtomicLong();
+
+    // Sealed segment id -> size in bytes; guarded by this
+    private final TreeMap<Long, Long> sealed = new TreeMap<>();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private volatile Thread compactor;
+    // Run before a compaction drops the records of finished claims
+    private volatile Runnable beforeCompaction = () -> {};
+
+    // Writer thread only
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1024 * 1024);
+    private final CRC32C crc = new CRC32C();
+    private final List<Op> uncommitted = new ArrayList<>();
+    private FileChannel channel;
+    private long activeId;
+    private long activeSize;
+    private long admitBytes = 0;
+    private long admits = 0;
+    // Average size of an ADMIT record, for the compaction estimate
+    private volatile long averageAdmitBytes = 64;
+
+    // Existing segments in dir are kept for recover(); new records go to a new segment
+    public BacklogJournal(Path dir, long segmentBytes, boolean fsync) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        Files.createDirectories(dir);
+        long maxId = 0;
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String name = p.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.delete(p); // an unfinished compaction
+                } else if (name.startsWith("journal-") && name.endsWith(".seg")) {
+                    long id = Long.parseLong(name.substring(8, name.length() - 4));
+                    sealed.put(id, Files.size(p));
+                    maxId = Math.max(maxId, id);
+                }
+            }
+        }
+        openSegment(maxId + 1);
+        this.writerThread = new Thread(this::writeLoop, "JournalWriter");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    // True if dir holds segments, i.e. claims a new journal there would recover
+    public static boolean hasSegments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return false;
+        try (var files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .anyMatch(name -> name.startsWith("journal-") && name.endsWith(".seg"));
+        }
+    }
+
+    /**
+     * Replays the segments that existed when the journal was opened and returns the claims
+     * admitted but not done, in admission order. A claim that was in flight counts that attempt
+     * as used. Claims come back as NEW, so the idempotency check runs on them again.
+     */
+    public List<Claim> recover() throws IOException {
+        List<Long> ids;
+        synchronized (this) {
+            ids = new ArrayList<>(sealed.keySet());
+        }
+        List<Entry> entries = replay(ids);
+        List<Claim> claims = entries.parallelStream().map(e -> {
+            Claim claim = e.admit.claim();
+            claim.attempt = e.attempt + (e.inFlight ? 1 : 0);
+            return claim;
+        }).collect(Collectors.toList());
+        live.addAndGet(claims.size());
+        return claims;
+    }
+
+    // Returns once every claim's admission is written (and forced, with fsync)
+    public void admit(List<Claim> claims) {
+        if (claims.isEmpty()) return;
+        for (Claim claim : claims) {
+            if (claim.policyNumber.length() * 3 > MAX_STRING_BYTES || claim.claimId().length() * 3 > MAX_STRING_BYTES
+                    || claim.typeLabel().length() * 3 > MAX_STRING_BYTES) {
+                throw new IllegalArgumentException("Claim ID, policy number or type too long to journal: " + claim.claimId());
+            }
+        }
+        Op last = null;
+        for (int i = 0; i < claims.size(); i++) {
+            Claim claim = claims.get(i);
+            last = new Op(ADMIT, claim, claim.attempt, i == claims.size() - 1 ? Thread.currentThread() : null);
+            queue.offer(last);
+        }
+        if (writerWaiting) LockSupport.unpark(writerThread);
+        while (!last.written && !closed) LockSupport.park(this);
+    }
+
+    // The following are asynchronous; a record lost in a crash only repeats work that the
+    // idempotency tracker or the retry limit already bounds
+    public void taken(Claim claim) { offer(new Op(TAKE, claim, claim.attempt, null)); }
+    public void retried(Claim claim) { offer(new Op(RETRY, claim, claim.attempt, null)); }
+    public void done(Claim claim) { offer(new Op(DONE, claim, claim.attempt, null)); }
+
+    public long liveCount() { return live.get(); }
+
+    /**
+     * Runs action on the compactor thread each time, before a compacted segment replaces the ones
+     * holding the records of finished claims, e.g. to force the idempotency store to disk first.
+     */
+    public void setBeforeCompaction(Runnable action) {
+        this.beforeCompaction = action;
+    }
+
+    // Writes every queued record; if no claim is live, the journal files are removed
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+            Thread c = compactor;
+            if (c != null) c.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.force(false);
+            channel.close();
+            if (live.get() == 0) {
+                synchronized (this) {
+                    for (long id : sealed.keySet()) Files.deleteIfExists(segmentPath(id));
+                    sealed.clear();
+                }
+                Files.deleteIfExists(segmentPath(activeId));
+            }
+        } catch (IOException e) {
+            System.err.println("Journal error: " + e);
+        }
+    }
+
+    private void offer(Op op) {
+        queue.offer(op);
+        if (writerWaiting) LockSupport.unpark(writerThread);
+    }
+
+    private void writeLoop() {
+        while (true) {
+            Op op = queue.poll();
+            if (op != null) {
+                append(op);
+                if (uncommitted.size() >= MAX_BATCH) commit();
+                continue;
+            }
+            if (!uncommitted.isEmpty()) commit();
+            if (closed && queue.isEmpty()) return;
+            // Idle until a record or close() unparks it; both check writerWaiting after offering
+            writerWaiting = true;
+            if (queue.isEmpty() && !closed) LockSupport.park(this);
+            writerWaiting = false;
+        }
+    }
+
+    private void append(Op op) {
+        if (buffer.remaining() < MAX_RECORD) drainBuffer();
+        int start = buffer.position();
+        encode(buffer, crc, op.type, ClaimIdempotencyTracker.encode(op.claim.claimId()), op.attempt,
+                op.type == ADMIT ? op.claim : null);
+        if (op.type == ADMIT) {
+            live.incrementAndGet();
+            admitBytes += buffer.position() - start;
+            if (++admits % 1024 == 0) averageAdmitBytes = admitBytes / admits;
+        } else if (op.type == DONE) {
+            live.decrementAndGet();
+        }
+        uncommitted.add(op);
+    }
+
+    // One framed record at the buffer's position; claim only for ADMIT
+    private static void encode(ByteBuffer buf, CRC32C crc, byte type, long key, int attempt, Claim claim) {
+        int lengthAt = buf.position();
+        buf.position(lengthAt + 4);
+        buf.put(type).putLong(key).putInt(attempt);
+        if (claim != null) {
+            putString(buf, claim.claimId());
+            putString(buf, claim.policyNumber);
+            buf.putInt(claim.claimAmount);
+            if (claim.otherType() == null) {
+                buf.put((byte) claim.claimType.ordinal());
+            } else {
+                buf.put((byte) (claim.claimType.ordinal() | TYPE_LABEL));
+                putString(buf, claim.otherType());
+            }
+            buf.putLong(claim.epochSecond).put((byte) claim.priorityFlag.ordinal());
+        }
+        int end = buf.position();
+        crc.reset();
+        crc.update(buf.duplicate().position(lengthAt + 4).limit(end));
+        buf.putInt(lengthAt, end - lengthAt - 4);
+        buf.putInt((int) crc.getValue());
+    }
+
+    // Longer strings are rejected by admit()
+    private static void putString(ByteBuffer buf, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        buf.putShort((short) bytes.length).put(bytes);
+    }
+
+    private void commit() {
+        drainBuffer();
+        if (fsync) force();
+        for (Op op : uncommitted) {
+            if (op.waiter != null) {
+                op.written = true;
+                LockSupport.unpark(op.waiter);
+            }
+        }
+        uncommitted.clear();
+        if (activeSize >= segmentBytes) rotate();
+    }
+
+    private void drainBuffer() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) activeSize += channel.write(buffer);
+        } catch (IOException e) {
+            System.err.println("Journal error: " + e);
+        }
+        buffer.clear();
+    }
+
+    private void force() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            System.err.println("Journal error: " + e);
+        }
+    }
+
+    private void rotate() {
+        force();
+        try {
+            channel.close();
+            synchronized (this) {
+                sealed.put(activeId, activeSize);
+            }
+            openSegment(activeId + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        maybeCompact();
+    }
+
+    private void openSegment(long id) throws IOException {
+        activeId = id;
+        channel = FileChannel.open(segmentPath(id), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putLong(MAGIC).putLong(0).flip();
+        while (header.hasRemaining()) channel.write(header);
+        activeSize = HEADER_BYTES;
+    }
+
+    // Segments sealed while a compaction runs are picked up by its next round
+    private void maybeCompact() {
+        if (!needsCompaction() || !compacting.compareAndSet(false, true)) return;
+        Thread t = new Thread(() -> {
+            try {
+                do {
+                    compact();
+                } while (needsCompaction());
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Journal compaction error: " + e);
+            } finally {
+                compacting.set(false);
+            }
+        }, "JournalCompactor");
+        t.setDaemon(true);
+        compactor = t;
+        t.start();
+    }
+
+    private boolean needsCompaction() {
+        long sealedBytes;
+        int count;
+        synchronized (this) {
+            count = sealed.size();
+            sealedBytes = sealed.values().stream().mapToLong(Long::longValue).sum();
+        }
+        return count >= 2 && sealedBytes > COMPACT_RATIO * live.get() * averageAdmitBytes;
+    }
+
+    // Rewrites the sealed segments as the last of them, holding only their live claims. Its header
+    // names the first id it replaces, so if a crash leaves older segments behind, replay skips them.
+    private void compact() throws IOException {
+        List<Long> ids;
+        synchronized (this) {
+            ids = new ArrayList<>(sealed.keySet());
+        }
+        long from = ids.get(0);
+        long to = ids.get(ids.size() - 1);
+        List<Entry> entries = replay(ids);
+
+        Path tmp = dir.resolve(segmentPath(to).getFileName() + ".tmp");
+        long size;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocate(1024 * 1024);
+            CRC32C crc = new CRC32C();
+            buf.putLong(MAGIC).putLong(from);
+            for (Entry e : entries) {
+                if (buf.remaining() < 2 * MAX_RECORD) {
+                    buf.flip();
+                    while (buf.hasRemaining()) out.write(buf);
+                    buf.clear();
+                }
+                Claim claim = e.admit.claim();
+                long key = e.admit.key;
+                encode(buf, crc, ADMIT, key, e.attempt, claim);
+                if (e.inFlight) encode(buf, crc, TAKE, key, e.attempt, null);
+            }
+            buf.flip();
+            while (buf.hasRemaining()) out.write(buf);
+            out.force(false);
+            size = out.size();
+        }
+        beforeCompaction.run();
+        Files.move(tmp, segmentPath(to), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (long id : ids) {
+            if (id != to) Files.deleteIfExists(segmentPath(id));
+        }
+        synchronized (this) {
+            for (long id : ids) sealed.remove(id);
+            sealed.put(to, size);
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return dir.resolve(String.format("journal-%010d.seg", id));
+    }
+
+    // Live entries of the given segments, in journal order. Segments are decoded in parallel, each
+    // routing its records to key partitions as it goes; the partitions are then folded in parallel,
+    // each over its own records of every segment in order.
+    private List<Entry> replay(List<Long> ids) throws IOException {
+        Set<Long> skipped = new HashSet<>();
+        for (long id : ids) {
+            long from = readHeader(segmentPath(id));
+            for (long s = from; from > 0 && s < id; s++) skipped.add(s);
+        }
+        List<Long> read = ids.stream().filter(id -> !skipped.contains(id)).collect(Collectors.toList());
+        int partitions = Math.max(1, Runtime.getRuntime().availableProcessors());
+        // Per segment, its records by partition
+        List<List<List<Record>>> segments;
+        try {
+            segments = IntStream.range(0, read.size()).parallel()
+                    .mapToObj(i -> readSegment(segmentPath(read.get(i)), (long) i << 40, partitions))
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return IntStream.range(0, partitions).parallel().mapToObj(p -> {
+            Replay replay = new Replay();
+            for (List<List<Record>> segment : segments) {
+                for (Record r : segment.get(p)) replay.apply(r);
+            }
+            return replay.live();
+        }).flatMap(List::stream).sorted(Comparator.comparingLong(e -> e.admit.seq)).collect(Collectors.toList());
+    }
+
+    private static long readHeader(Path path) throws IOException {
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && in.read(header) >= 0) {}
+            if (header.position() < HEADER_BYTES || header.getLong(0) != MAGIC) return 0;
+            return header.getLong(8);
+        }
+    }
+
+    // Records up to the end of the file or the first torn or corrupt record, which is where a crash
+    // stopped the writer, by key partition, each in segment order
+    private static List<List<Record>> readSegment(Path path, long seqBase, int partitions) {
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buf = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            List<List<Record>> records = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; p++) records.add(new ArrayList<>());
+            if (buf.limit() < HEADER_BYTES || buf.getLong(0) != MAGIC) {
+                System.err.println("Journal: not a segment, skipped: " + path);
+                return records;
+            }
+            CRC32C crc = new CRC32C();
+            int pos = HEADER_BYTES;
+            long seq = seqBase;
+            while (pos + 4 <= buf.limit()) {
+                int length = buf.getInt(pos);
+                if (length < FIXED_PAYLOAD || pos + 4 + length + 4 > buf.limit()) break;
+                crc.reset();
+                crc.update(buf.duplicate().position(pos + 4).limit(pos + 4 + length));
+                if ((int) crc.getValue() != buf.getInt(pos + 4 + length)) break;
+                int p = pos + 4;
+                long key = buf.getLong(p + 1);
+                records.get(Math.floorMod(ClaimIdempotencyTracker.mix(key), partitions))
+                        .add(new Record(buf.get(p), key, buf.getInt(p + 9), seq++, buf, p + FIXED_PAYLOAD));
+                pos += 4 + length + 4;
+            }
+            if (pos != buf.limit()) {
+                System.err.printf("Journal: ignored %d bytes after the last whole record of %s%n", buf.limit() - pos, path);
+            }
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Op {
+        final byte type;
+        final Claim claim;
+        final int attempt;
+        final Thread waiter;
+        volatile boolean written;
+
+        Op(byte type, Claim claim, int attempt, Thread waiter) {
+            this.type = type;
+            this.claim = claim;
+            this.attempt = attempt;
+            this.waiter = waiter;
+        }
+    }
+
+    // A decoded record; the claim of an ADMIT is decoded from the segment only if it is live
+    private static final class Record {
+        final byte type;
+        final long key;
+        final int attempt;
+        final long seq;
+        private final ByteBuffer segment;
+        private final int claimAt;
+
+        Record(byte type, long key, int attempt, long seq, ByteBuffer segment, int claimAt) {
+            this.type = type;
+            this.key = key;
+            this.attempt = attempt;
+            this.seq = seq;
+            this.segment = segment;
+            this.claimAt = claimAt;
+        }
+
+        Claim claim() {
+            ByteBuffer buf = segment.duplicate().position(claimAt);
+            String claimId = getString(buf);
+            String policyNumber = getString(buf).intern();
+            int amount = buf.getInt();
+            int type = buf.get();
+            String label = (type & TYPE_LABEL) != 0 ? getString(buf) : null;
+            long epochSecond = buf.getLong();
+            Claim.Priority priority = PRIORITIES[buf.get()];
+            if (label != null) return new Claim(claimId, policyNumber, amount, label, epochSecond, priority);
+            return new Claim(claimId, policyNumber, amount, TYPES[type], epochSecond, priority);
+        }
+
+        private static String getString(ByteBuffer buf) {
+            byte[] bytes = new byte[buf.getShort() & 0xFFFF];
+            buf.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    // An admitted claim during replay
+    private static final class Entry {
+        final Record admit;
+        int attempt;
+        boolean inFlight;
+
+        Entry(Record admit) {
+            this.admit = admit;
+            this.attempt = admit.attempt;
+        }
+    }
+
+    // Folds records in journal order. Records carry the claim ID's key, so duplicate IDs are
+    // matched oldest first: a take goes to the oldest queued entry, a retry or done to the oldest
+    // in-flight one, as the backlog would have done.
+    private static final class Replay {
+        private final Map<Long, ArrayDeque<Entry>> byKey = new HashMap<>();
+
+        void apply(Record r) {
+            if (r.type == ADMIT) {
+                byKey.computeIfAbsent(r.key, k -> new ArrayDeque<>(1)).add(new Entry(r));
+                return;
+            }
+            ArrayDeque<Entry> entries = byKey.get(r.key);
+            if (entries == null) return; // admitted in a compacted-away or lost segment
+            Entry e = find(entries, r.type != TAKE);
+            if (e == null) e = entries.peekFirst();
+            switch (r.type) {
+                case TAKE:
+                    e.inFlight = true;
+                    break;
+                case RETRY:
+                    e.inFlight = false;
+                    e.attempt = r.attempt;
+                    break;
+                case DONE:
+                    entries.remove(e);
+                    if (entries.isEmpty()) byKey.remove(r.key);
+                    break;
+            }
+        }
+
+        private static Entry find(ArrayDeque<Entry> entries, boolean inFlight) {
+            for (Entry e : entries) {
+                if (e.inFlight == inFlight) return e;
+            }
+            return null;
+        }
+
+        List<Entry> live() {
+            List<Entry> live = new ArrayList<>();
+            for (ArrayDeque<Entry> entries : byKey.values()) live.addAll(entries);
+            return live;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.claims;
+
+import com.claims.model.Claim;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Reads the binary audit log written by {@link AuditLogger} with {@code auditFormat=BINARY}.
+ * The file is memory-mapped and indexed by claim ID on open.
+ *
+ * Layout: the 8-byte magic "AUDITBIN", then records of [int length][byte type][payload], where
+ * length counts type and payload. Each AuditLogger starts a SESSION record, which resets the
+ * dictionary. DICT assigns a short code to a thread name or status. EVENT is
+ * [long epochMicros][short thread][short prev][short new][str claimId][str policy][byte priority][int attempt],
+ * where a code of -1 is followed by the name inline and str is [short length][UTF-8 bytes].
+ *
+ * Usage: BinaryAuditReader audit.bin audit.csv  (converts to the text audit.log layout)
+ */
+public class BinaryAuditReader implements Closeable {
+    static final byte[] MAGIC = "AUDITBIN".getBytes(StandardCharsets.US_ASCII);
+    static final byte SESSION = 1;
+    static final byte DICT = 2;
+    static final byte EVENT = 3;
+    static final short INLINE = -1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final ZoneId zone = ZoneId.systemDefault();
+    // Claim ID -> offsets of its EVENT records, in file order
+    private final Map<String, int[]> index = new HashMap<>();
+    // Session start offsets and the dictionary of each session
+    private final List<Integer> sessionStarts = new ArrayList<>();
+    private final List<List<String>> dictionaries = new ArrayList<>();
+    private int eventCount;
+
+    public BinaryAuditReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        if (channel.size() > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Binary audit log larger than 2 GB: " + path);
+        }
+        this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        byte[] magic = new byte[MAGIC.length];
+        if (data.limit() >= magic.length) data.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            channel.close();
+            throw new IOException("Not a binary audit log: " + path);
+        }
+        buildIndex();
+    }
+
+    private void buildIndex() {
+        Map<String, int[]> counts = new HashMap<>();
+        List<String> dictionary = null;
+        int pos = MAGIC.length;
+        int limit = data.limit();
+        while (pos + 5 <= limit) {
+            int length = data.getInt(pos);
+            if (length <= 0 || pos + 4 + length > limit) break; // torn tail from a crash
+            byte type = data.get(pos + 4);
+            if (type == SESSION) {
+                dictionary = new ArrayList<>();
+                sessionStarts.add(pos);
+                dictionaries.add(dictionary);
+            } else if (type == DICT && dictionary != null) {
+                int code = data.getShort(pos + 5);
+                String name = readString(pos + 7);
+                while (dictionary.size() <= code) dictionary.add(null);
+                dictionary.set(code, name);
+            } else if (type == EVENT) {
+                int p = pos + 5 + 8;
+                for (int i = 0; i < 3; i++) p = skipCode(p);
+                String claimId = readString(p);
+                int[] offsets = counts.get(claimId);
+                if (offsets == null) {
+                    offsets = new int[] { 0, 0, 0, 0, 0 };
+                    counts.put(claimId, offsets);
+                } else if (offsets[0] + 1 == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                    counts.put(claimId, offsets);
+                }
+                offsets[++offsets[0]] = pos;
+                eventCount++;
+            }
+            pos += 4 + length;
+        }
+        // Slot 0 held the count; store exact-sized offset arrays
+        for (Map.Entry<String, int[]> e : counts.entrySet()) {
+            int[] offsets = e.getValue();
+            index.put(e.getKey(), Arrays.copyOfRange(offsets, 1, offsets[0] + 1));
+        }
+    }
+
+    public int claimCount() { return index.size(); }
+    public int eventCount() { return eventCount; }
+
+    // Audit lines for a claim, oldest first, in the text audit.log layout
+    public List<String> history(String claimId) {
+        int[] offsets = index.get(claimId);
+        if (offsets == null) return List.of();
+        List<String> lines = new ArrayList<>(offsets.length);
+        for (int offset : offsets) lines.add(decode(offset));
+        return lines;
+    }
+
+    // Rewrites the whole log in the text layout, in file order
+    public void toCsv(Writer out) throws IOException {
+        int pos = MAGIC.length;
+        int limit = data.limit();
+        while (pos + 5 <= limit) {
+            int length = data.getInt(pos);
+            if (length <= 0 || pos + 4 + length > limit) break;
+            if (data.get(pos + 4) == EVENT) {
+                out.write(decode(pos));
+                out.write('\n');
+            }
+            pos += 4 + length;
+        }
+    }
+
+    private String decode(int offset) {
+        List<String> dictionary = dictionaryAt(offset);
+        int p = offset + 5;
+        long micros = data.getLong(p);
+        p += 8;
+        String[] codes = new String[3];
+        for (int i = 0; i < 3; i++) {
+            short code = data.getShort(p);
+            if (code == INLINE) {
+                codes[i] = readString(p + 2);
+            } else {
+                codes[i] = dictionary.get(code);
+            }
+            p = skipCode(p);
+        }
+        String claimId = readString(p);
+        p += 2 + (data.getShort(p) & 0xFFFF);
+        String policy = readString(p);
+        p += 2 + (data.getShort(p) & 0xFFFF);
+        Claim.Priority priority = Claim.Priority.values()[data.get(p)];
+        int attempt = data.getInt(p + 1);
+        Instant time = Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1000);
+        return LocalDateTime.ofInstant(time, zone) + "," + claimId + "," + codes[0] + "," + codes[1] + ","
+                + codes[2] + "," + policy + "," + priority.name() + "," + attempt;
+    }
+
+    private List<String> dictionaryAt(int offset) {
+        int lo = 0, hi = sessionStarts.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (sessionStarts.get(mid) <= offset) lo = mid;
+            else hi = mid - 1;
+        }
+        return dictionaries.get(lo);
+    }
+
+    private int skipCode(int p) {
+        short code = data.getShort(p);
+        return code == INLINE ? p + 2 + 2 + (data.getShort(p + 2) & 0xFFFF) : p + 2;
+    }
+
+    private String readString(int p) {
+        int length = data.getShort(p) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        data.get(p + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BinaryAuditReader <audit.bin> <audit.csv>");
+            System.exit(1);
+        }
+        try (BinaryAuditReader reader = new BinaryAuditReader(Path.of(args[0]));
+             BufferedWriter out = Files.newBufferedWriter(Path.of(args[1]))) {
+            reader.toCsv(out);
+            System.out.println("Converted " + reader.eventCount() + " events for " + reader.claimCount() + " claims.");
+        }
+    }
+
+    // Encodes records for AuditLogger's writer thread; not thread safe
+    static final class Encoder {
+        private final Map<String, Short> codes = new HashMap<>();
+
+        void writeSession(ByteBuffer out) {
+            codes.clear();
+            out.putInt(1).put(SESSION);
+        }
+
+        // Worst case size of an EVENT record plus any DICT records it needs
+        static int maxSize(String... strings) {
+            int size = 64;
+            for (String s : strings) size += 2 * (9 + 3 * s.length());
+            return size;
+        }
+
+        void writeEvent(ByteBuffer out, long epochMicros, String threadName, String prevStatus, String newStatus,
+                        String claimId, String policyNumber, Claim.Priority priority, int attempt) {
+            short thread = code(out, threadName);
+            short prev = code(out, prevStatus);
+            short next = code(out, newStatus);
+            int start = out.position();
+            out.putInt(0).put(EVENT).putLong(epochMicros);
+            putCode(out, thread, threadName);
+            putCode(out, prev, prevStatus);
+            putCode(out, next, newStatus);
+            putString(out, claimId);
+            putString(out, policyNumber);
+            out.put((byte) priority.ordinal()).putInt(attempt);
+            out.putInt(start, out.position() - start - 4);
+        }
+
+        private short code(ByteBuffer out, String name) {
+            Short code = codes.get(name);
+            if (code != null) return code;
+            if (codes.size() >= Short.MAX_VALUE) return INLINE;
+            code = (short) codes.size();
+            codes.put(name, code);
+            int start = out.position();
+            out.putInt(0).put(DICT).putShort(code);
+            putString(out, name);
+            out.putInt(start, out.position() - start - 4);
+            return code;
+        }
+
+        private static void putCode(ByteBuffer out, short code, String name) {
+            out.putShort(code);
+            if (code == INLINE) putString(out, name);
+        }
+
+        private static void putString(ByteBuffer out, String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.putShort((short) bytes.length).put(bytes);
+        }
+    }
+}
@@ -3,125 +3,604 @@ package com.claims;
 import com.claims.model.Claim;
 
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 
 public class ClaimBacklog {
     private final int capacity;
     private final AuditLogger auditLogger;
+    // Chooses which ready policy each shard serves next
+    private final SchedulingPolicy scheduling;
+    // Optional write-ahead journal. Admissions are journaled before the shard lock is taken, so a
+    // producer's claims replay in the order it put them, but claims of one policy put concurrently
+    // by two producers can replay in the opposite order to how they were queued.
+    private final BacklogJournal journal;
 
-    // Map: PolicyNumber -> PolicyQueue (FIFO for that policy)
-    private final ConcurrentHashMap<String, PolicyQueue> policyQueues = new ConcurrentHashMap<>();
-    // Global URGENT/FIFO queue for fair scheduling between policies
-    private final LinkedBlockingQueue<Claim> urgentQueue = new LinkedBlockingQueue<>();
-    private final LinkedBlockingQueue<Claim> normalQueue = new LinkedBlockingQueue<>();
+    // Policies are spread over shards by hash, each with its own lock, queues and ready sets.
+    // With one shard every consumer shares it; with more, each shard has a single consumer.
+    private final Shard[] shards;
+    // Policies stolen away from their hash shard -> the shard that owns them now. Changed only
+    // with both shard locks held; an entry is dropped when the policy's queue is evicted.
+    private final Map<String, Shard> moved = new ConcurrentHashMap<>();
+    // Shard consumers waiting with nothing to take or steal
+    private final AtomicInteger idleConsumers = new AtomicInteger();
 
+    // Guards waiting for intake; notFull is signalled when capacity frees up or intake resumes
     private final ReentrantLock intakeLock = new ReentrantLock();
+    private final Condition notFull = intakeLock.newCondition();
+    private final AtomicInteger putWaiters = new AtomicInteger();
+
     private volatile boolean paused = false;
+    private volatile boolean closed = false;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Queued claims, plus capacity reserved by puts in progress; each one holds a capacity permit
+    // until it is taken
+    private final AtomicInteger size = new AtomicInteger();
+    // URGENT claims among them
+    private final AtomicInteger urgentSize = new AtomicInteger();
 
     public ClaimBacklog(int capacity, AuditLogger auditLogger) {
+        this(capacity, auditLogger, null);
+    }
+
+    public ClaimBacklog(int capacity, AuditLogger auditLogger, BacklogJournal journal) {
+        this(capacity, auditLogger, journal, 1);
+    }
+
+    // shards > 1: each shard is consumed by one caller of take(int). auditLogger may be null for a
+    // backlog whose intake is audited elsewhere, like the partition coordinator's staging backlog.
+    public ClaimBacklog(int capacity, AuditLogger auditLogger, BacklogJournal journal, int shards) {
+        this(capacity, auditLogger, journal, shards, new StrictPriorityScheduling());
+    }
+
+    public ClaimBacklog(int capacity, AuditLogger auditLogger, BacklogJournal journal, int shards,
+                        SchedulingPolicy scheduling) {
         this.capacity = capacity;
         this.auditLogger = auditLogger;
+        this.journal = journal;
+        this.scheduling = scheduling;
+        this.shards = new Shard[Math.max(1, shards)];
+        for (int i = 0; i < this.shards.length; i++) this.shards[i] = new Shard(i);
+    }
+
+    public int shardCount() { return shards.length; }
+
+    /**
+     * Queues claims recovered from the journal, in journal order, before any other claim is put.
+     * They are already journaled and were admitted once, so capacity and pausing do not apply.
+     */
+    public void restore(List<Claim> claims) {
+        if (claims.isEmpty()) return;
+        if (auditLogger != null) auditLogger.logEvents(claims, "RECOVERED", Claim.Status.NEW.name(), Claim.Status.NEW.name());
+        for (Claim claim : claims) {
+            size.incrementAndGet();
+            Shard shard = lockOwner(claim.policyNumber);
+            try {
+                shard.enqueue(claim);
+            } finally {
+                shard.lock.unlock();
+            }
+            wakeIdleConsumer();
+        }
     }
 
     public boolean isPaused() { return paused; }
 
     public void pauseIntake() {
-        intakeLock.lock();
-        try {
-            paused = true;
-        } finally {
-            intakeLock.unlock();
-        }
+        paused = true;
     }
 
     public void resumeIntake() {
         intakeLock.lock();
         try {
             paused = false;
+            notFull.signalAll();
         } finally {
             intakeLock.unlock();
         }
     }
 
- 
+    /**
+     * No more claims will be put. Workers blocked in {@link #take()} return null
+     * once the backlog is empty and no claim is in flight.
+     */
+    public void closeIntake() {
+        closed = true;
+        signalAllShards();
+    }
+
+    // Blocks while intake is paused or the backlog is full
     public void put(Claim claim) throws InterruptedException {
+        reserve(1);
+        admit(List.of(claim));
+        Shard shard = lockOwner(claim.policyNumber);
+        try {
+            shard.enqueue(claim);
+        } finally {
+            shard.lock.unlock();
+        }
+        wakeIdleConsumer();
+    }
+
+    /**
+     * Admits a batch of claims, as many per lock acquisition as capacity allows, blocking
+     * while intake is paused or the backlog is full. Claims are grouped by policy first, so
+     * each policy queue is looked up once per batch; per-policy order is kept. Consecutive
+     * policies of the same shard are admitted under one acquisition of its lock.
+     */
+    public void putAll(List<Claim> claims) throws InterruptedException {
+        if (claims.isEmpty()) return;
+        Map<String, List<Claim>> byPolicy = new LinkedHashMap<>();
+        for (Claim claim : claims) {
+            byPolicy.computeIfAbsent(claim.policyNumber, k -> new ArrayList<>(2)).add(claim);
+        }
+        List<Claim> grouped = new ArrayList<>(claims.size());
+        for (List<Claim> policyClaims : byPolicy.values()) grouped.addAll(policyClaims);
+        int next = 0;
+        while (next < grouped.size()) {
+            int permits = reserve(grouped.size() - next);
+            List<Claim> reserved = grouped.subList(next, next + permits);
+            admit(reserved);
+            enqueueGrouped(reserved);
+            next += permits;
+        }
+    }
+
+    // Audits and journals claims that hold capacity permits, before any becomes visible to workers,
+    // so INGESTED precedes their processing events. Doing it only once capacity is reserved means
+    // a put interrupted while blocked leaves no record of a claim that was never queued.
+    private void admit(List<Claim> claims) {
+        if (auditLogger != null) auditLogger.logEvents(claims, "INGESTED", Claim.Status.NEW.name(), Claim.Status.NEW.name());
+        if (journal == null) return;
+        try {
+            journal.admit(claims);
+        } catch (RuntimeException e) {
+            size.addAndGet(-claims.size());
+            signalNotFull();
+            throw e;
+        }
+    }
+
+    // Queues claims grouped by policy, each run of one shard's policies under one acquisition of its lock
+    private void enqueueGrouped(List<Claim> claims) {
+        int i = 0;
+        while (i < claims.size()) {
+            Shard shard = lockOwner(claims.get(i).policyNumber);
+            try {
+                long now = System.nanoTime();
+                while (i < claims.size() && owner(claims.get(i).policyNumber) == shard) {
+                    String policyNumber = claims.get(i).policyNumber;
+                    PolicyQueue pq = shard.policyQueues.computeIfAbsent(policyNumber, PolicyQueue::new);
+                    int n = 0;
+                    for (; i < claims.size() && claims.get(i).policyNumber.equals(policyNumber); i++, n++) {
+                        Claim claim = claims.get(i);
+                        claim.queuedAtNanos = now;
+                        if (claim.priorityFlag == Claim.Priority.URGENT) urgentSize.incrementAndGet();
+                        pq.enqueue(claim);
+                    }
+                    Metrics.INGESTED.add(n);
+                    if (!pq.busy) shard.markReady(pq);
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+            wakeIdleConsumer();
+        }
+    }
+
+    public int size() { return size.get(); }
+
+    public int size(Claim.Priority priority) {
+        int urgent = urgentSize.get();
+        return priority == Claim.Priority.URGENT ? urgent : Math.max(0, size.get() - urgent);
+    }
+
+    public int remainingCapacity() { return Math.max(0, capacity - size.get()); }
+
+    /**
+     * Takes the next claim whose policy is not in flight, in the order of the scheduling policy
+     * within a shard, and marks that policy busy until {@link #complete(Claim)} is called for the claim.
+     * Returns null if no policy is ready.
+     */
+    public Claim pollNext() {
+        for (Shard shard : shards) {
+            Claim claim = shard.poll();
+            if (claim != null) {
+                recordWait(claim);
+                return claim;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Like {@link #pollNext()}, but waits until a policy is ready. Returns null once
+     * intake is closed, the backlog is empty and no claim is in flight. Only for an
+     * unsharded backlog; a sharded one is consumed through {@link #take(int)}.
+     */
+    public Claim take() throws InterruptedException {
+        if (shards.length != 1) throw new IllegalStateException("Sharded backlog: use take(shard)");
+        return take(0);
+    }
+
+    /**
+     * Takes the next claim of the given shard. When the shard has none ready, takes over a whole
+     * ready policy from a shard whose consumer is busy, newest ready first, and from then on owns
+     * that policy until its queue empties; a policy is never split, so its order is kept.
+     * A consumer with nothing to take or steal waits untimed: it is signalled when its own shard
+     * gains a ready policy, or when another shard has one while its consumer is busy.
+     */
+    public Claim take(int shardIndex) throws InterruptedException {
+        Shard shard = shards[shardIndex];
+        shard.consumerBusy = false;
+        Claim claim;
+        while ((claim = shard.poll()) == null && (claim = steal(shard)) == null) {
+            shard.lock.lockInterruptibly();
+            try {
+                if (shard.readyEntries > 0) continue;
+                if (drained()) return null;
+                if (shards.length == 1) {
+                    shard.ready.await();
+                    continue;
+                }
+                // Registered before the re-check, so work made stealable after it finds us waiting
+                shard.waiting = true;
+                idleConsumers.incrementAndGet();
+                try {
+                    if (!stealable(shard)) shard.ready.await();
+                } finally {
+                    shard.waiting = false;
+                    idleConsumers.decrementAndGet();
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        shard.consumerBusy = true;
+        // Its other ready policies are stealable from now on
+        if (shard.readyEntries > 0) wakeIdleConsumer();
+        recordWait(claim);
+        return claim;
+    }
+
+    // Outside the lock, to keep the critical section short
+    private static void recordWait(Claim claim) {
+        long waitNanos = System.nanoTime() - claim.queuedAtNanos;
+        Metrics.BACKLOG_WAIT.recordNanos(waitNanos);
+        Metrics.backlogWait(claim.priorityFlag, claim.claimType).recordNanos(waitNanos);
+        Metrics.SLOWEST_POLICY_WAITS.recordNanos(claim.policyNumber, waitNanos);
+    }
+
+    /**
+     * Releases the policy of a claim returned by {@link #pollNext()} or {@link #take()}, making its
+     * remaining claims eligible again.
+     */
+    public void complete(Claim claim) {
+        Shard shard = lockOwner(claim.policyNumber);
+        try {
+            inFlight.decrementAndGet();
+            if (journal != null) journal.done(claim);
+            PolicyQueue pq = shard.policyQueues.get(claim.policyNumber);
+            if (pq != null) {
+                pq.busy = false;
+                if (pq.size() == 0) {
+                    shard.policyQueues.remove(claim.policyNumber);
+                    moved.remove(claim.policyNumber, shard);
+                } else {
+                    shard.markReady(pq);
+                }
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+        if (drained()) signalAllShards();
+        else wakeIdleConsumer();
+    }
+
+    /**
+     * Puts a claim taken earlier back at the head of its policy queue and releases the
+     * policy, so the retry runs before any claim of the policy that arrived after it.
+     */
+    public void retry(Claim claim) {
+        Shard shard = lockOwner(claim.policyNumber);
+        try {
+            PolicyQueue pq = shard.policyQueues.computeIfAbsent(claim.policyNumber, PolicyQueue::new);
+            claim.queuedAtNanos = System.nanoTime();
+            pq.pushFirst(claim);
+            size.incrementAndGet();
+            if (claim.priorityFlag == Claim.Priority.URGENT) urgentSize.incrementAndGet();
+            if (journal != null) journal.retried(claim);
+            inFlight.decrementAndGet();
+            pq.busy = false;
+            shard.markReady(pq);
+        } finally {
+            shard.lock.unlock();
+        }
+        wakeIdleConsumer();
+    }
+
+    // Takes up to max capacity permits, at least one, blocking while paused or full
+    private int reserve(int max) throws InterruptedException {
         while (true) {
-            if (isPaused() || size() >= capacity) {
-                Thread.sleep(50);
+            int s = size.get();
+            if (!paused && s < capacity) {
+                int n = Math.min(max, capacity - s);
+                if (size.compareAndSet(s, s + n)) return n;
                 continue;
             }
-            // Per-policy FIFO
-            policyQueues.computeIfAbsent(claim.policyNumber, k -> new PolicyQueue());
-            PolicyQueue pq = policyQueues.get(claim.policyNumber);
-            pq.enqueue(claim);
-            // Also add to global priority queue for scheduling
-            if (claim.priorityFlag == Claim.Priority.URGENT)
-                urgentQueue.put(claim);
-            else
-                normalQueue.put(claim);
+            intakeLock.lockInterruptibly();
+            try {
+                putWaiters.incrementAndGet();
+                try {
+                    while (paused || size.get() >= capacity) {
+                        notFull.await();
+                    }
+                } finally {
+                    putWaiters.decrementAndGet();
+                }
+            } finally {
+                intakeLock.unlock();
+            }
+        }
+    }
+
+    // Takers only touch the intake lock when a put is waiting
+    private void signalNotFull() {
+        if (putWaiters.get() == 0) return;
+        intakeLock.lock();
+        try {
+            notFull.signal();
+        } finally {
+            intakeLock.unlock();
+        }
+    }
+
+    private boolean drained() {
+        return closed && inFlight.get() == 0 && size.get() == 0;
+    }
 
-            auditLogger.logEvent(claim, "INGESTED", claim.status.name(), claim.status.name(), claim.attempt);
-            break;
+    private void signalAllShards() {
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                shard.ready.signalAll();
+            } finally {
+                shard.lock.unlock();
+            }
         }
     }
 
-    public int size() {
-        int s = 0;
-        for (PolicyQueue pq : policyQueues.values()) {
-            s += pq.size();
+    // True if another shard has a ready policy while its consumer is busy, so thief could steal it
+    private boolean stealable(Shard thief) {
+        if (size.get() == 0) return false;
+        for (Shard victim : shards) {
+            if (victim != thief && victim.consumerBusy && victim.readyEntries > 0) return true;
         }
-        return s;
+        return false;
     }
 
+    // Signals one waiting shard consumer if some shard has work it could steal. Called with no
+    // shard lock held, after a policy became ready or a consumer became busy; costs one read
+    // while no consumer is idle.
+    private void wakeIdleConsumer() {
+        if (idleConsumers.get() == 0) return;
+        for (Shard idle : shards) {
+            if (!idle.waiting || !stealable(idle)) continue;
+            idle.lock.lock();
+            try {
+                idle.ready.signal();
+            } finally {
+                idle.lock.unlock();
+            }
+            return;
+        }
+    }
 
-    public Claim pollNext(Set<String> lockedPolicies) {
-        // Prefer urgent first, but only if policy is not locked
-        Claim claim = pollQueue(urgentQueue, lockedPolicies);
-        if (claim != null) return claim;
-        return pollQueue(normalQueue, lockedPolicies);
+    private Shard owner(String policyNumber) {
+        if (shards.length == 1) return shards[0];
+        Shard shard = moved.get(policyNumber);
+        return shard != null ? shard : home(policyNumber);
     }
 
-    private Claim pollQueue(LinkedBlockingQueue<Claim> queue, Set<String> lockedPolicies) {
-        Iterator<Claim> it = queue.iterator();
-        while (it.hasNext()) {
-            Claim c = it.next();
-            if (!lockedPolicies.contains(c.policyNumber)) {
-                // Remove from both global and per-policy queue
-                it.remove();
-                PolicyQueue pq = policyQueues.get(c.policyNumber);
-                pq.remove(c);
-                return c;
+    private Shard home(String policyNumber) {
+        return shards[Math.floorMod(policyNumber.hashCode(), shards.length)];
+    }
+
+    // Returns the owning shard of the policy, locked; ownership cannot change while it is held
+    private Shard lockOwner(String policyNumber) {
+        while (true) {
+            Shard shard = owner(policyNumber);
+            shard.lock.lock();
+            if (owner(policyNumber) == shard) return shard;
+            shard.lock.unlock();
+        }
+    }
+
+    // Moves one ready, idle policy from a shard whose consumer is busy to thief and takes its
+    // next claim. Both shard locks are taken in index order.
+    private Claim steal(Shard thief) {
+        if (shards.length == 1 || size.get() == 0) return null;
+        for (int i = 1; i < shards.length; i++) {
+            Shard victim = shards[(thief.index + i) % shards.length];
+            if (!victim.consumerBusy || victim.readyEntries == 0) continue;
+            Shard first = thief.index < victim.index ? thief : victim;
+            Shard second = first == thief ? victim : thief;
+            first.lock.lock();
+            second.lock.lock();
+            try {
+                PolicyQueue pq = victim.pollStealable();
+                if (pq == null) continue;
+                victim.policyQueues.remove(pq.policyNumber);
+                // Its other slot, if queued at the victim, is left there marked stale, so the victim
+                // discards it without reading the queue, which its lock no longer guards
+                pq.detachSlots();
+                thief.policyQueues.put(pq.policyNumber, pq);
+                if (home(pq.policyNumber) == thief) moved.remove(pq.policyNumber);
+                else moved.put(pq.policyNumber, thief);
+                Metrics.STEALS.increment();
+                thief.markReady(pq);
+                return thief.pollReady();
+            } finally {
+                second.lock.unlock();
+                first.lock.unlock();
             }
         }
         return null;
     }
 
+    // A lock, policy queues and ready sets; everything in it is guarded by its lock
+    private final class Shard {
+        final int index;
+        final ReentrantLock lock = new ReentrantLock();
+        // Signalled when a policy becomes ready, when another shard has a policy to steal, or
+        // when a closed backlog has drained
+        final Condition ready = lock.newCondition();
+        // Map: PolicyNumber -> PolicyQueue (FIFO for that policy). Idle, empty queues are evicted.
+        final Map<String, PolicyQueue> policyQueues = new HashMap<>();
+        // Ready slots of unlocked policies with queued claims, ordered by the scheduling policy.
+        // Entries are removed lazily, so a slot may be present after it was taken, drained or stolen.
+        final SchedulingPolicy.ReadySet readySet = scheduling.newReadySet();
+        // Entries in the ready set, stale ones included; read without the lock as a hint
+        volatile int readyEntries;
+        // True while this shard's consumer is processing a claim it took
+        volatile boolean consumerBusy;
+        // True while this shard's consumer waits with nothing to take or steal
+        volatile boolean waiting;
 
-    public void requeue(Claim claim) {
-        // Always append to policy queue tail, and global queue according to priority
-        policyQueues.computeIfAbsent(claim.policyNumber, k -> new PolicyQueue());
-        policyQueues.get(claim.policyNumber).enqueue(claim);
-        if (claim.priorityFlag == Claim.Priority.URGENT)
-            urgentQueue.offer(claim);
-        else
-            normalQueue.offer(claim);
-    }
+        Shard(int index) { this.index = index; }
 
- 
-    public void remove(Claim claim) {
-        PolicyQueue pq = policyQueues.get(claim.policyNumber);
-        if (pq != null) pq.remove(claim);
-        urgentQueue.remove(claim);
-        normalQueue.remove(claim);
+        Claim poll() {
+            lock.lock();
+            try {
+                return pollReady();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Claim pollReady() {
+            Claim claim = null;
+            ReadySlot slot;
+            long now = System.nanoTime();
+            while ((slot = readySet.poll(now)) != null) {
+                readyEntries--;
+                if (slot.isStale()) continue; // stolen by another shard
+                PolicyQueue pq = slot.queue;
+                slot.queued = false;
+                if (pq.busy) continue; // stale entry, re-added on complete()
+                claim = pq.poll(slot.priority);
+                if (claim == null) continue; // drained, or evicted and replaced
+                pq.busy = true;
+                break;
+            }
+            if (claim != null) {
+                inFlight.incrementAndGet();
+                size.decrementAndGet();
+                if (claim.priorityFlag == Claim.Priority.URGENT) urgentSize.decrementAndGet();
+                if (journal != null) journal.taken(claim);
+                signalNotFull();
+            }
+            return claim;
+        }
+
+        // An idle policy with claims that this shard would serve last; its consumer keeps the rest
+        PolicyQueue pollStealable() {
+            ReadySlot slot;
+            while ((slot = readySet.pollLast()) != null) {
+                readyEntries--;
+                if (slot.isStale()) continue;
+                PolicyQueue pq = slot.queue;
+                slot.queued = false;
+                if (pq.busy || !pq.hasClaims(slot.priority)) continue;
+                return pq;
+            }
+            return null;
+        }
+
+        // The caller has reserved capacity for the claim
+        void enqueue(Claim claim) {
+            PolicyQueue pq = policyQueues.computeIfAbsent(claim.policyNumber, PolicyQueue::new);
+            claim.queuedAtNanos = System.nanoTime();
+            pq.enqueue(claim);
+            if (claim.priorityFlag == Claim.Priority.URGENT) urgentSize.incrementAndGet();
+            Metrics.INGESTED.increment();
+            if (!pq.busy) markReady(pq);
+        }
+
+        void markReady(PolicyQueue pq) {
+            for (ReadySlot slot : pq.slots) {
+                if (slot.queued || !pq.hasClaims(slot.priority)) continue;
+                slot.queued = true;
+                readySet.add(slot);
+                readyEntries++;
+                ready.signal();
+            }
+        }
     }
 
+    // Not thread safe on its own; always accessed under the lock of the shard that owns it
     public static class PolicyQueue {
-        private final LinkedList<Claim> queue = new LinkedList<>();
+        final String policyNumber;
+        private final ArrayDeque<Claim> urgent = new ArrayDeque<>();
+        private final ArrayDeque<Claim> normal = new ArrayDeque<>();
+        // URGENT slot first; replaced when the policy is stolen
+        ReadySlot[] slots = newSlots();
+        boolean busy;
+
+        PolicyQueue(String policyNumber) {
+            this.policyNumber = policyNumber;
+        }
+
+        void enqueue(Claim claim) { queueFor(claim.priorityFlag).addLast(claim); }
+        void pushFirst(Claim claim) { queueFor(claim.priorityFlag).addFirst(claim); }
+        Claim poll(Claim.Priority priority) { return queueFor(priority).pollFirst(); }
+        Claim peek(Claim.Priority priority) { return queueFor(priority).peekFirst(); }
+        boolean hasClaims(Claim.Priority priority) { return !queueFor(priority).isEmpty(); }
+        int size() { return urgent.size() + normal.size(); }
+
+        // Marks the current slots stale and gives the queue new ones. Called with the locks of both
+        // the old and the new owner held, so the old owner sees the mark under its own lock.
+        void detachSlots() {
+            for (ReadySlot slot : slots) slot.stale = true;
+            slots = newSlots();
+        }
+
+        private ReadySlot[] newSlots() {
+            return new ReadySlot[] { new ReadySlot(this, Claim.Priority.URGENT), new ReadySlot(this, Claim.Priority.NORMAL) };
+        }
+
+        private ArrayDeque<Claim> queueFor(Claim.Priority priority) {
+            return priority == Claim.Priority.URGENT ? urgent : normal;
+        }
+    }
+
+    /**
+     * What a ready set holds: the claims of one priority of one policy queue. queued is set while
+     * the slot waits in its shard's ready set, and is guarded by that shard's lock. When the policy
+     * is stolen its slots are detached and may linger, stale, in the set of the shard it was
+     * stolen from; a stale slot never touches the queue, which that shard no longer guards.
+     */
+    public static final class ReadySlot {
+        public final Claim.Priority priority;
+        final PolicyQueue queue;
+        boolean queued;
+        private boolean stale;
+
+        ReadySlot(PolicyQueue queue, Claim.Priority priority) {
+            this.queue = queue;
+            this.priority = priority;
+        }
+
+        // True once the policy was stolen by another shard; the shard skips the slot when polled
+        public boolean isStale() { return stale; }
+
+        // The claim this slot would hand out next, or null if the slot is stale or drained
+        public Claim head() { return stale ? null : queue.peek(priority); }
 
-        public synchronized void enqueue(Claim claim) { queue.addLast(claim); }
-        public synchronized void remove(Claim claim) { queue.remove(claim); }
-        public synchronized int size() { return queue.size(); }
+        // A busy policy's slot is skipped when polled and queued again once the policy completes
+        public boolean isBusy() { return !stale && queue.busy; }
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,364 @@
+package com.claims;
+
+import com.claims.model.Claim;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Parses claims.csv rows straight from bytes: no line Strings, no split, and a fixed-format
+// timestamp decoder. Repeated policy numbers are interned and claim types map to Claim.Type by
+// exact label; other types are interned and kept as the claim's label.
+// Not thread safe; use one parser per thread. Parsers may share interners.
+public class ClaimCsvParser {
+    // Mapped window size; a single row longer than this is rejected
+    static final int WINDOW = 64 * 1024 * 1024;
+    private static final Claim.Type[] CLAIM_TYPES = Claim.Type.values();
+
+    public interface Sink {
+        // Returns false to stop parsing
+        boolean accept(Claim claim) throws InterruptedException;
+
+        // Called once the parsed claims are complete (end of file, or before a checkpoint);
+        // a buffering sink hands on what it holds
+        default void flush() throws InterruptedException {}
+    }
+
+    private static final int POLICY_INTERNER_CAPACITY = 1 << 16;
+    private static final int TYPE_INTERNER_CAPACITY = 64;
+
+    private final Interner policies;
+    private final Interner otherTypes;
+    private final int[] commas = new int[5];
+    private final byte[] lastTimestamp = new byte[32];
+    private int lastTimestampLength = -1;
+    private long lastTimestampValue;
+
+    public ClaimCsvParser() {
+        this(new Interner(POLICY_INTERNER_CAPACITY), new Interner(TYPE_INTERNER_CAPACITY));
+    }
+
+    ClaimCsvParser(Interner policies, Interner otherTypes) {
+        this.policies = policies;
+        this.otherTypes = otherTypes;
+    }
+
+    // Maps the file window by window and feeds every parsed claim to sink, in file order
+    public void parseFile(Path path, Sink sink) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long pos = 0;
+            while (pos < size) {
+                int length = (int) Math.min(WINDOW, size - pos);
+                boolean eof = pos + length == size;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+                int consumed = parse(window, 0, length, eof, sink);
+                if (consumed < 0) return;
+                if (consumed == 0 && !eof) throw new IOException("Row longer than " + WINDOW + " bytes at offset " + pos);
+                pos += consumed;
+                if (eof) break;
+            }
+        }
+        sink.flush();
+    }
+
+    /**
+     * Splits the file into chunks of about chunkBytes at row boundaries and parses them on a
+     * fork-join pool. Chunks are handed to sink strictly in file order, so claims arrive in the
+     * same order as with {@link #parseFile}. At most 2 * parallelism parsed chunks are held.
+     * The chunk parsers share one set of interners, so a policy number is one String file-wide.
+     */
+    public static void parseFileParallel(Path path, int parallelism, int chunkBytes, Sink sink)
+            throws IOException, InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Interner policies = new Interner(POLICY_INTERNER_CAPACITY);
+        Interner otherTypes = new Interner(TYPE_INTERNER_CAPACITY);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<long[]> chunks = splitAtRows(channel, Math.min(chunkBytes, WINDOW));
+            ArrayDeque<ForkJoinTask<List<Claim>>> parsing = new ArrayDeque<>();
+            int next = 0;
+            while (next < chunks.size() || !parsing.isEmpty()) {
+                while (next < chunks.size() && parsing.size() < 2 * parallelism) {
+                    long[] chunk = chunks.get(next++);
+                    parsing.add(pool.submit(() -> {
+                        ClaimCsvParser parser = new ClaimCsvParser(policies, otherTypes);
+                        return parser.parseChunk(channel, chunk[0], chunk[1]);
+                    }));
+                }
+                for (Claim claim : parsing.poll().join()) {
+                    if (!sink.accept(claim)) return;
+                }
+            }
+            sink.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<Claim> parseChunk(FileChannel channel, long start, long end) throws IOException, InterruptedException {
+        MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        List<Claim> claims = new ArrayList<>();
+        parse(chunk, 0, (int) (end - start), true, claims::add);
+        return claims;
+    }
+
+    // [start, end) offsets of chunks that each end just after a newline (or at EOF)
+    static List<long[]> splitAtRows(FileChannel channel, int chunkBytes) throws IOException {
+        long size = channel.size();
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkBytes);
+            // Move end forward to just past the next newline
+            while (end < size) {
+                probe.clear();
+                int n = channel.read(probe, end);
+                if (n <= 0) {
+                    end = size;
+                    break;
+                }
+                int newline = -1;
+                for (int i = 0; i < n; i++) {
+                    if (probe.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += n;
+            }
+            chunks.add(new long[] { start, Math.min(end, size) });
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Parses the complete rows in buf[from, to). If eof, a last row without a newline is
+     * parsed too. Returns the offset just past the last parsed row, relative to from, or
+     * -1 if the sink asked to stop.
+     */
+    public int parse(ByteBuffer buf, int from, int to, boolean eof, Sink sink) throws InterruptedException {
+        int lineStart = from;
+        int pos = from;
+        while (true) {
+            while (pos < to && buf.get(pos) != '\n') pos++;
+            if (pos == to && !eof) return lineStart - from;
+            int lineEnd = pos;
+            if (lineEnd > lineStart && buf.get(lineEnd - 1) == '\r') lineEnd--;
+            if (lineEnd > lineStart) {
+                Claim claim = parseRow(buf, lineStart, lineEnd);
+                if (claim != null && !sink.accept(claim)) return -1;
+            }
+            if (pos >= to) return to - from;
+            lineStart = ++pos;
+        }
+    }
+
+    private Claim parseRow(ByteBuffer buf, int start, int end) {
+        if (startsWith(buf, start, end, "ClaimID")) return null; // Skip header
+        if (isBlank(buf, start, end)) return null;
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            if (buf.get(i) == ',') {
+                if (n == commas.length) return parseError(buf, start, end, "expected 6 fields");
+                commas[n++] = i;
+            }
+        }
+        if (n != commas.length) return parseError(buf, start, end, "expected 6 fields");
+        try {
+            String id = string(buf, start, commas[0]);
+            String policy = policies.intern(buf, commas[0] + 1, commas[1]);
+            int amount = parseInt(buf, commas[1] + 1, commas[2]);
+            Claim.Type type = claimType(buf, commas[2] + 1, commas[3]);
+            long ts = parseTimestamp(buf, commas[3] + 1, commas[4]);
+            Claim.Priority prio = equalsIgnoreCase(buf, commas[4] + 1, end, "URGENT")
+                    ? Claim.Priority.URGENT : Claim.Priority.NORMAL;
+            if (type == null) {
+                return new Claim(id, policy, amount, otherTypes.intern(buf, commas[2] + 1, commas[3]), ts, prio);
+            }
+            return new Claim(id, policy, amount, type, ts, prio);
+        } catch (RuntimeException e) {
+            return parseError(buf, start, end, e.toString());
+        }
+    }
+
+    private static Claim parseError(ByteBuffer buf, int start, int end, String reason) {
+        System.err.println("Parse error: " + reason + " in \"" + string(buf, start, end) + "\"");
+        return null;
+    }
+
+    static int parseInt(ByteBuffer buf, int start, int end) {
+        if (start == end) throw new NumberFormatException("empty amount");
+        boolean negative = buf.get(start) == '-';
+        int i = negative || buf.get(start) == '+' ? start + 1 : start;
+        if (i == end) throw new NumberFormatException("bad amount");
+        long value = 0;
+        for (; i < end; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) throw new NumberFormatException("bad amount: " + string(buf, start, end));
+            value = value * 10 + d;
+            if (value > Integer.MAX_VALUE + 1L) throw new NumberFormatException("amount out of range");
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) throw new NumberFormatException("amount out of range");
+        return (int) value;
+    }
+
+    // The type whose label matches exactly, as Claim.Type.of does, or null
+    private static Claim.Type claimType(ByteBuffer buf, int start, int end) {
+        for (Claim.Type t : CLAIM_TYPES) {
+            if (end - start == t.label.length() && startsWith(buf, start, end, t.label)) return t;
+        }
+        return null;
+    }
+
+    // Epoch seconds of the zone-less timestamp. Fast path for yyyy-MM-ddTHH:mm[:ss]; anything else
+    // goes through LocalDateTime.parse.
+    private long parseTimestamp(ByteBuffer buf, int start, int end) {
+        int length = end - start;
+        if (length == lastTimestampLength && sameBytes(buf, start, lastTimestamp, length)) return lastTimestampValue;
+        long value;
+        if ((length == 16 || length == 19) && buf.get(start + 4) == '-' && buf.get(start + 7) == '-'
+                && buf.get(start + 10) == 'T' && buf.get(start + 13) == ':' && (length == 16 || buf.get(start + 16) == ':')) {
+            value = LocalDateTime.of(digits(buf, start, 4), digits(buf, start + 5, 2), digits(buf, start + 8, 2),
+                    digits(buf, start + 11, 2), digits(buf, start + 14, 2),
+                    length == 19 ? digits(buf, start + 17, 2) : 0).toEpochSecond(ZoneOffset.UTC);
+        } else {
+            value = LocalDateTime.parse(string(buf, start, end)).toEpochSecond(ZoneOffset.UTC);
+        }
+        if (length <= lastTimestamp.length) {
+            buf.get(start, lastTimestamp, 0, length);
+            lastTimestampLength = length;
+            lastTimestampValue = value;
+        }
+        return value;
+    }
+
+    private static int digits(ByteBuffer buf, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) throw new IllegalArgumentException("bad timestamp digit");
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static boolean sameBytes(ByteBuffer buf, int start, byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            if (buf.get(start + i) != bytes[i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean startsWith(ByteBuffer buf, int start, int end, String prefix) {
+        if (end - start < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buf.get(start + i) != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean equalsIgnoreCase(ByteBuffer buf, int start, int end, String upper) {
+        if (end - start != upper.length()) return false;
+        for (int i = 0; i < upper.length(); i++) {
+            int c = buf.get(start + i);
+            if (c >= 'a' && c <= 'z') c -= 'a' - 'A';
+            if (c != upper.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isBlank(ByteBuffer buf, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buf.get(i);
+            if (b != ' ' && b != '\t') return false;
+        }
+        return true;
+    }
+
+    static String string(ByteBuffer buf, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buf.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Open-addressing table from byte sequences to shared Strings. Safe for concurrent use: lookups
+    // take no lock and an entry is published by a CAS on an empty slot. Once full, new values are
+    // returned uninterned so a file with millions of distinct values cannot grow it without bound.
+    static final class Interner {
+        private final AtomicReferenceArray<Entry> entries;
+        private final int mask;
+        private final int maxEntries;
+        private final AtomicInteger size = new AtomicInteger();
+
+        Interner(int capacity) {
+            int tableSize = Integer.highestOneBit(Math.max(4, capacity * 2 - 1)) << 1;
+            this.entries = new AtomicReferenceArray<>(tableSize);
+            this.mask = tableSize - 1;
+            this.maxEntries = capacity;
+        }
+
+        String intern(ByteBuffer buf, int start, int end) {
+            int hash = 1;
+            for (int i = start; i < end; i++) hash = 31 * hash + buf.get(i);
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            String value = null;
+            while (true) {
+                Entry entry = entries.get(slot);
+                if (entry == null) {
+                    if (value == null) value = string(buf, start, end);
+                    if (!reserve()) return value;
+                    byte[] key = new byte[end - start];
+                    buf.get(start, key);
+                    if (entries.compareAndSet(slot, null, new Entry(key, value))) return value;
+                    // Another parser took the slot, perhaps for these same bytes; look again
+                    size.decrementAndGet();
+                    continue;
+                }
+                if (entry.key.length == end - start && sameBytes(buf, start, entry.key, entry.key.length)) {
+                    return entry.value;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        // At most maxEntries, half the table, so a probe always reaches an empty slot
+        private boolean reserve() {
+            int n;
+            do {
+                n = size.get();
+                if (n >= maxEntries) return false;
+            } while (!size.compareAndSet(n, n + 1));
+            return true;
+        }
+
+        private static final class Entry {
+            final byte[] key;
+            final String value;
+
+            Entry(byte[] key, String value) {
+                this.key = key;
+                this.value = value;
+            }
+        }
+    }
+}
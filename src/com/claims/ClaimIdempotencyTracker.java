@@ -1,18 +1,360 @@
 package com.claims;
 
-import java.util.concurrent.ConcurrentHashMap;
-
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
 
+// Tracks claim IDs as primitive longs. Claims in progress are held in a small heap table; once a
+// claim reaches a final status its ID moves to the completed table, which with a store path is an
+// open-addressing table in a memory-mapped file, so completed IDs survive restarts without being
+// loaded into the heap. An optional Bloom filter answers most lookups of new IDs without probing it.
+// Writes reach the page cache at once, so they survive a process crash; they are forced to disk on
+// close, when the table grows, and by force(), which the journal calls before each compaction. An
+// OS crash can lose the IDs completed since the last of those, and such claims run again if read again.
+// If the file cannot grow, later IDs are kept on the heap for the rest of the run only.
+// Thread safe.
 public class ClaimIdempotencyTracker {
-    private final ConcurrentHashMap<String, Boolean> processedClaims = new ConcurrentHashMap<>();
+    private static final long MAGIC = 0x49444D504F543031L; // "IDMPOT01"
+    private static final int HEADER_LONGS = 2;             // magic, capacity
+    private static final int MIN_CAPACITY = 1 << 10;
+
+    private final Path storePath;
+    private final int bloomBitsPerId;
+    private final LongTable inProgress = new LongTable(LongBuffer.allocate(HEADER_LONGS + MIN_CAPACITY), MIN_CAPACITY);
+    private FileChannel channel;
+    private LongTable completed;
+    private BloomFilter bloom;
+    // Set once the store could not grow; IDs completed after that stay in the in-progress table,
+    // so they are still skipped for the rest of the run but not persisted
+    private boolean storeFull = false;
+
+    public ClaimIdempotencyTracker() {
+        this.storePath = null;
+        this.bloomBitsPerId = 0;
+        this.completed = new LongTable(LongBuffer.allocate(HEADER_LONGS + MIN_CAPACITY), MIN_CAPACITY);
+    }
+
+    // storePath null keeps completed IDs on the heap only; bloomBitsPerId 0 disables the filter
+    public ClaimIdempotencyTracker(Path storePath, int initialCapacity, int bloomBitsPerId) throws IOException {
+        this.storePath = storePath;
+        this.bloomBitsPerId = bloomBitsPerId;
+        int capacity = tableCapacity(initialCapacity);
+        if (storePath == null) {
+            this.completed = new LongTable(LongBuffer.allocate(HEADER_LONGS + capacity), capacity);
+        } else {
+            open(capacity);
+        }
+        rebuildBloom();
+    }
+
+    // True if the claim was neither completed nor in progress; it is then in progress until complete()
+    public synchronized boolean markProcessing(String claimId) {
+        long id = encode(claimId);
+        if (inProgress.contains(id) || isCompleted(id)) return false;
+        inProgress.add(id);
+        if (inProgress.needsResize()) inProgress.resizeInto(LongBuffer.allocate(HEADER_LONGS + inProgress.capacity * 2));
+        return true;
+    }
+
+    // Records that the claim reached a final status, so it is skipped even after a restart
+    public synchronized void complete(String claimId) {
+        long id = encode(claimId);
+        if (isCompleted(id)) {
+            inProgress.remove(id);
+            return;
+        }
+        if (storeFull) return;
+        inProgress.remove(id);
+        completed.add(id);
+        if (bloom != null) bloom.add(id);
+        if (completed.needsResize()) grow();
+    }
+
+    public synchronized int getProcessedCount() {
+        return completed.size + inProgress.size;
+    }
+
+    // Forces the file-backed table to disk; outside the lock, so lookups go on meanwhile
+    public void force() {
+        MappedByteBuffer mapped;
+        synchronized (this) {
+            if (channel == null) return;
+            mapped = completed.mapped;
+        }
+        mapped.force();
+    }
+
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            completed.mapped.force();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private boolean isCompleted(long id) {
+        if (bloom != null && !bloom.mightContain(id)) return false;
+        return completed.contains(id);
+    }
+
+    private void open(int capacity) throws IOException {
+        if (Files.exists(storePath) && Files.size(storePath) >= 8L * HEADER_LONGS) {
+            channel = FileChannel.open(storePath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(8 * HEADER_LONGS);
+            channel.read(header, 0);
+            header.flip();
+            long magic = header.getLong();
+            long stored = header.getLong();
+            if (magic != MAGIC || Long.bitCount(stored) != 1 || channel.size() != 8 * (HEADER_LONGS + stored)) {
+                channel.close();
+                throw new IOException("Not an idempotency store: " + storePath);
+            }
+            completed = LongTable.map(channel, (int) stored);
+            System.out.println("Loaded " + completed.size + " processed claim IDs from " + storePath);
+        } else {
+            channel = create(storePath, capacity);
+            completed = LongTable.map(channel, capacity);
+        }
+    }
+
+    // Rehashes into a table twice the size, written beside the store and renamed over it
+    private void grow() {
+        int capacity = completed.capacity * 2;
+        if (storePath == null) {
+            completed.resizeInto(LongBuffer.allocate(HEADER_LONGS + capacity));
+        } else {
+            Path tmp = storePath.resolveSibling(storePath.getFileName() + ".tmp");
+            FileChannel next = null;
+            LongTable bigger;
+            try {
+                next = create(tmp, capacity);
+                bigger = LongTable.map(next, capacity);
+                completed.copyTo(bigger);
+                bigger.mapped.force();
+                Files.move(tmp, storePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // The table is past half full, so it takes no more IDs: probes would only get
+                // longer, and in a full table they would never end
+                System.err.println("Idempotency store cannot grow; IDs completed from now on are not persisted: " + e);
+                storeFull = true;
+                if (next != null) {
+                    try {
+                        next.close();
+                        Files.deleteIfExists(tmp);
+                    } catch (IOException ignored) {}
+                }
+                return;
+            }
+            FileChannel old = channel;
+            channel = next;
+            completed = bigger;
+            try {
+                old.close();
+            } catch (IOException ignored) {}
+        }
+        rebuildBloom();
+    }
+
+    private static FileChannel create(Path path, int capacity) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(8 * HEADER_LONGS).putLong(MAGIC).putLong(capacity);
+        header.flip();
+        ch.write(header, 0);
+        // Extend to full size; the rest reads as zeros, i.e. empty slots
+        ch.write(ByteBuffer.allocate(1), 8L * (HEADER_LONGS + capacity) - 1);
+        return ch;
+    }
+
+    private void rebuildBloom() {
+        if (bloomBitsPerId <= 0) return;
+        bloom = new BloomFilter((long) completed.maxSize() * bloomBitsPerId, bloomBitsPerId);
+        completed.forEach(bloom::add);
+    }
 
-    
-    public boolean markProcessing(String claimId) {
-        // Atomic put-if-absent
-        return processedClaims.putIfAbsent(claimId, true) == null;
+    private static int tableCapacity(int expectedIds) {
+        long wanted = Math.max(MIN_CAPACITY, 2L * expectedIds);
+        if (wanted > 1 << 30) throw new IllegalArgumentException("Idempotency capacity too large: " + expectedIds);
+        return Integer.highestOneBit((int) wanted - 1) << 1;
     }
 
-    public int getProcessedCount() {
-        return processedClaims.size();
+    /**
+     * Encodes a claim ID as a non-zero long. IDs of 1 to 8 ASCII characters (e.g. "C0001") are
+     * packed byte for byte, which is exact. Longer or non-ASCII IDs use a 64-bit hash with the top
+     * bit set, so they cannot collide with packed IDs; two such IDs collide with probability ~2^-63.
+     */
+    static long encode(String claimId) {
+        int n = claimId.length();
+        if (n > 0 && n <= 8) {
+            long packed = 0;
+            for (int i = 0; i < n; i++) {
+                char c = claimId.charAt(i);
+                if (c == 0 || c > 127) return hash(claimId);
+                packed = packed << 8 | c;
+            }
+            return packed;
+        }
+        return hash(claimId);
+    }
+
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h) | Long.MIN_VALUE;
+    }
+
+    // Finalizer of SplitMix64
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // Linear-probing set of non-zero longs over a LongBuffer of [header][capacity slots]; 0 is empty
+    static final class LongTable {
+        private static final double MAX_LOAD = 0.5;
+
+        private LongBuffer slots;
+        final MappedByteBuffer mapped; // null for heap tables
+        private int capacity;
+        private int mask;
+        private int size;
+
+        LongTable(LongBuffer slots, int capacity) {
+            this(slots, capacity, null);
+        }
+
+        private LongTable(LongBuffer slots, int capacity, MappedByteBuffer mapped) {
+            this.slots = slots;
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+            this.mapped = mapped;
+            for (int i = 0; i < capacity; i++) {
+                if (slots.get(HEADER_LONGS + i) != 0) size++;
+            }
+        }
+
+        static LongTable map(FileChannel channel, int capacity) throws IOException {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_WRITE, 0, 8L * (HEADER_LONGS + capacity));
+            return new LongTable(bytes.asLongBuffer(), capacity, bytes);
+        }
+
+        int size() { return size; }
+
+        int maxSize() { return (int) (capacity * MAX_LOAD); }
+
+        boolean needsResize() { return size > maxSize(); }
+
+        boolean contains(long key) {
+            for (int i = slot(key); ; i = (i + 1) & mask) {
+                long k = slots.get(HEADER_LONGS + i);
+                if (k == key) return true;
+                if (k == 0) return false;
+            }
+        }
+
+        void add(long key) {
+            int i = slot(key);
+            while (true) {
+                long k = slots.get(HEADER_LONGS + i);
+                if (k == key) return;
+                if (k == 0) break;
+                i = (i + 1) & mask;
+            }
+            // Keeps a slot empty, which is what ends every probe
+            if (size >= capacity - 1) throw new IllegalStateException("Table full");
+            slots.put(HEADER_LONGS + i, key);
+            size++;
+        }
+
+        // Backward-shift deletion keeps probe chains intact without tombstones
+        void remove(long key) {
+            int i = slot(key);
+            while (true) {
+                long k = slots.get(HEADER_LONGS + i);
+                if (k == 0) return;
+                if (k == key) break;
+                i = (i + 1) & mask;
+            }
+            int hole = i;
+            for (int j = (hole + 1) & mask; ; j = (j + 1) & mask) {
+                long k = slots.get(HEADER_LONGS + j);
+                if (k == 0) break;
+                int home = slot(k);
+                // Move k into the hole unless its home lies cyclically in (hole, j]
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    slots.put(HEADER_LONGS + hole, k);
+                    hole = j;
+                }
+            }
+            slots.put(HEADER_LONGS + hole, 0);
+            size--;
+        }
+
+        void forEach(LongConsumer action) {
+            for (int i = 0; i < capacity; i++) {
+                long k = slots.get(HEADER_LONGS + i);
+                if (k != 0) action.accept(k);
+            }
+        }
+
+        void copyTo(LongTable other) {
+            forEach(other::add);
+        }
+
+        // Heap tables only: rehash into a larger buffer in place
+        void resizeInto(LongBuffer bigger) {
+            LongTable next = new LongTable(bigger, bigger.capacity() - HEADER_LONGS);
+            copyTo(next);
+            slots = next.slots;
+            capacity = next.capacity;
+            mask = next.mask;
+        }
+
+        private int slot(long key) {
+            return (int) mix(key) & mask;
+        }
+    }
+
+    // Bloom filter with double hashing over one 64-bit mix of the key
+    static final class BloomFilter {
+        private final long[] bits;
+        private final long bitCount;
+        private final int hashes;
+
+        BloomFilter(long bitCount, int bitsPerId) {
+            this.bits = new long[(int) Math.max(1, (bitCount + 63) >>> 6)];
+            this.bitCount = (long) bits.length << 6;
+            this.hashes = Math.max(1, (int) Math.round(bitsPerId * Math.log(2)));
+        }
+
+        void add(long key) {
+            long h = mix(key ^ 0x9e3779b97f4a7c15L);
+            long h1 = h >>> 32, h2 = h & 0xFFFFFFFFL | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        boolean mightContain(long key) {
+            long h = mix(key ^ 0x9e3779b97f4a7c15L);
+            long h1 = h >>> 32, h2 = h & 0xFFFFFFFFL | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
     }
 }
@@ -2,9 +2,9 @@ package com.claims;
 
 import com.claims.model.Claim;
 
-import java.io.*;
 import java.nio.file.Path;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 
 public class ClaimIngestion implements Runnable {
@@ -12,49 +12,73 @@ public class ClaimIngestion implements Runnable {
     private final ClaimBacklog backlog;
     private final SuspiciousMonitor monitor;
     private final Config config;
+    private final AdmissionController admission;
     private volatile boolean stopped = false;
+    private volatile ClaimTailer tailer;
 
     public ClaimIngestion(Path csvPath, ClaimBacklog backlog, SuspiciousMonitor monitor, Config config) {
+        this(csvPath, backlog, monitor, config, null);
+    }
+
+    // admission may be null for unthrottled intake
+    public ClaimIngestion(Path csvPath, ClaimBacklog backlog, SuspiciousMonitor monitor, Config config,
+                          AdmissionController admission) {
         this.csvPath = csvPath;
         this.backlog = backlog;
         this.monitor = monitor;
         this.config = config;
+        this.admission = admission;
     }
 
     public void stop() {
         stopped = true;
+        ClaimTailer t = tailer;
+        if (t != null) t.stop();
     }
 
     @Override
     public void run() {
-        try (BufferedReader br = new BufferedReader(new FileReader(csvPath.toFile()))) {
-            String line;
-            while (!stopped && (line = br.readLine()) != null) {
-                if (line.trim().isEmpty() || line.startsWith("ClaimID")) continue; // Skip header
-                Claim claim = parseClaim(line);
-                if (claim == null) continue;
-                if (claim.isSuspicious()) {
-                    monitor.recordSuspicious(claim);
-                }
-                backlog.put(claim);
+        try {
+            if (config.getIngestionMode() == Config.IngestionMode.FOLLOW) {
+                tailer = new ClaimTailer(config.getFollowPaths(), config.getCheckpointPath(), new Batcher());
+                if (!stopped) tailer.run();
+            } else if (config.getIngestionParallelism() > 1) {
+                // Chunks are parsed in parallel but admitted in file order, keeping per-policy arrival order
+                ClaimCsvParser.parseFileParallel(csvPath, config.getIngestionParallelism(),
+                        config.getIngestionChunkBytes(), new Batcher());
+            } else {
+                new ClaimCsvParser().parseFile(csvPath, new Batcher());
             }
         } catch (Exception e) {
             System.err.println("Ingestion error: " + e);
         }
     }
 
-    private Claim parseClaim(String line) {
-        try {
-            String[] parts = line.split(",", -1);
-            if (parts.length != 6) return null;
-            String id = parts[0], policy = parts[1], type = parts[3], pf = parts[5];
-            int amt = Integer.parseInt(parts[2]);
-            LocalDateTime ts = LocalDateTime.parse(parts[4]);
-            Claim.Priority prio = pf.equalsIgnoreCase("URGENT") ? Claim.Priority.URGENT : Claim.Priority.NORMAL;
-            return new Claim(id, policy, amt, type, ts, prio);
-        } catch (Exception e) {
-            System.err.println("Parse error: " + e);
-            return null;
+    // Collects parsed claims and admits them ingestionBatchSize at a time through putAll. Under
+    // admission control a batch is also flushed as soon as the rate limit would hold it back.
+    private class Batcher implements ClaimCsvParser.Sink {
+        private final List<Claim> batch = new ArrayList<>(config.getIngestionBatchSize());
+
+        @Override
+        public boolean accept(Claim claim) throws InterruptedException {
+            if (stopped) return false;
+            if (claim.isSuspicious()) {
+                monitor.recordSuspicious(claim);
+            }
+            if (admission != null && !admission.tryAcquire()) {
+                flush();
+                admission.acquire();
+            }
+            batch.add(claim);
+            if (batch.size() >= config.getIngestionBatchSize()) flush();
+            return true;
+        }
+
+        @Override
+        public void flush() throws InterruptedException {
+            if (batch.isEmpty()) return;
+            backlog.putAll(batch);
+            batch.clear();
         }
     }
 }
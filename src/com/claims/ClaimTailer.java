@@ -0,0 +1,130 @@
+package com.claims;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Follows claim files as they are appended to. Each configured path is a file or a directory
+// (whose *.csv files are followed). Only complete rows are parsed; the byte offset reached in
+// every file is checkpointed after its rows are admitted, so a restart resumes where it stopped.
+public class ClaimTailer implements Runnable {
+    private static final long RESCAN_MS = 1000;
+
+    private final List<Path> paths;
+    private final Path checkpointPath;
+    private final ClaimCsvParser.Sink sink;
+    private final ClaimCsvParser parser = new ClaimCsvParser();
+    private final Map<Path, Long> offsets = new TreeMap<>();
+    private volatile boolean stopped = false;
+
+    public ClaimTailer(List<Path> paths, Path checkpointPath, ClaimCsvParser.Sink sink) {
+        this.paths = paths;
+        this.checkpointPath = checkpointPath;
+        this.sink = sink;
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public void run() {
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            loadCheckpoint();
+            Set<Path> dirs = new HashSet<>();
+            for (Path p : paths) {
+                Path dir = Files.isDirectory(p) ? p : p.toAbsolutePath().getParent();
+                if (dirs.add(dir)) dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+            while (!stopped) {
+                // Events only tell us something changed; every pass re-checks all followed files,
+                // which also covers missed or overflowed events
+                for (Path file : followedFiles()) {
+                    if (stopped) return;
+                    readNewRows(file);
+                }
+                WatchKey key = watcher.poll(RESCAN_MS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        } catch (InterruptedException ignored) {
+        } catch (IOException e) {
+            System.err.println("Ingestion error: " + e);
+        }
+    }
+
+    private List<Path> followedFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path p : paths) {
+            if (Files.isDirectory(p)) {
+                try (Stream<Path> listing = Files.list(p)) {
+                    listing.filter(f -> f.getFileName().toString().endsWith(".csv") && Files.isRegularFile(f))
+                            .sorted()
+                            .forEach(files::add);
+                }
+            } else if (Files.isRegularFile(p)) {
+                files.add(p);
+            }
+        }
+        return files;
+    }
+
+    private void readNewRows(Path file) throws IOException, InterruptedException {
+        Path key = file.toAbsolutePath().normalize();
+        long offset = offsets.getOrDefault(key, 0L);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset) {
+                System.out.println("Claim file truncated, reading from the start: " + file);
+                offset = 0;
+            }
+            long start = offset;
+            while (offset < size && !stopped) {
+                int length = (int) Math.min(ClaimCsvParser.WINDOW, size - offset);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                // eof=false: a last row without its newline is still being written
+                int consumed = parser.parse(window, 0, length, false, sink);
+                if (consumed < 0) return; // sink stopped; the rows of this window are not checkpointed
+                if (consumed == 0) {
+                    if (length == ClaimCsvParser.WINDOW) throw new IOException("Row longer than " + length + " bytes in " + file);
+                    break;
+                }
+                offset += consumed;
+            }
+            if (offset != start) {
+                sink.flush();
+                offsets.put(key, offset);
+                saveCheckpoint();
+            }
+        }
+    }
+
+    private void loadCheckpoint() throws IOException {
+        if (checkpointPath == null || !Files.exists(checkpointPath)) return;
+        Properties props = new Properties();
+        try (Reader in = Files.newBufferedReader(checkpointPath)) {
+            props.load(in);
+        }
+        for (String name : props.stringPropertyNames()) {
+            offsets.put(Path.of(name), Long.parseLong(props.getProperty(name)));
+        }
+    }
+
+    // Written to a temp file and renamed, so a crash leaves either the old or the new checkpoint
+    private void saveCheckpoint() throws IOException {
+        if (checkpointPath == null) return;
+        Properties props = new Properties();
+        offsets.forEach((path, offset) -> props.setProperty(path.toString(), Long.toString(offset)));
+        Path tmp = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp)) {
+            props.store(out, "Claim file offsets");
+        }
+        Files.move(tmp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -1,11 +1,24 @@
 package com.claims;
 
+import com.claims.model.Claim;
+
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
 public class Config{
+    // FIXED: workerCount platform threads. VIRTUAL: one virtual thread per claim in flight.
+    // SHARDED: one worker per backlog shard, stealing whole policies when idle
+    public enum WorkerMode { FIXED, VIRTUAL, SHARDED }
+    // ONCE: read claimsCsvPath to EOF. FOLLOW: tail followPaths until shutdown.
+    public enum IngestionMode { ONCE, FOLLOW }
+    // Order in which ready claims are served; see SchedulingPolicy
+    public enum Scheduling { STRICT, WFQ, AGING, EDF }
+
     private final int workerCount;
     private final int backlogCapacity;
     private final int externalCheckTimeoutMs;
@@ -15,10 +28,62 @@ public class Config{
     private final Path claimsCsvPath;
     private final Path auditLogPath;
     private final Path summaryReportPath;
+    private final WorkerMode workerMode;
+    private final int maxInFlightClaims;
+    private final int externalCheckLatencyMs;
+    private final int retryBaseDelayMs;
+    private final int retryMaxDelayMs;
+    private final AuditLogger.Format auditFormat;
+    private final AuditLogger.Durability auditDurability;
+    private final int auditFsyncIntervalMs;
+    private final int auditQueueCapacity;
+    private final int auditHistoryMaxClaims;
+    private final int auditHistoryWindowSeconds;
+    private final int ingestionParallelism;
+    private final int ingestionChunkBytes;
+    private final int ingestionBatchSize;
+    private final IngestionMode ingestionMode;
+    private final List<Path> followPaths;
+    private final Path checkpointPath;
+    private final Path idempotencyStorePath;
+    private final int idempotencyInitialCapacity;
+    private final int idempotencyBloomBitsPerId;
+    private final boolean admissionControl;
+    private final double admissionMinRate;
+    private final double admissionMaxRate;
+    private final double admissionIncreaseStep;
+    private final double admissionDecreaseFactor;
+    private final double admissionTargetDepth;
+    private final int admissionQueueDelayTargetMs;
+    private final int admissionLatencyTargetMs;
+    private final double admissionMaxErrorRatio;
+    private final Path metricsPath;
+    private final int metricsIntervalMs;
+    private final boolean metricsJmx;
+    private final int summaryIntervalMs;
+    private final Path journalPath;
+    private final long journalSegmentBytes;
+    private final boolean journalFsync;
+    private final int partitions;
+    private final int externalCheckBatchSize;
+    private final int externalCheckLingerMs;
+    private final Scheduling schedulingPolicy;
+    private final long[] schedulingPriorityWeights;
+    private final long[] schedulingTypeWeights;
+    private final long schedulingAgingMs;
+    private final long[] schedulingSlaMs;
 
     public Config(int workerCount, int backlogCapacity, int externalCheckTimeoutMs, int retryLimit,
                   int suspiciousWindowSeconds, int suspiciousThreshold,
                   Path claimsCsvPath, Path auditLogPath, Path summaryReportPath) {
+        this(workerCount, backlogCapacity, externalCheckTimeoutMs, retryLimit, suspiciousWindowSeconds,
+                suspiciousThreshold, claimsCsvPath, auditLogPath, summaryReportPath, new Properties());
+    }
+
+    // Settings beyond the core ones are read from props, falling back to their defaults
+    public Config(int workerCount, int backlogCapacity, int externalCheckTimeoutMs, int retryLimit,
+                  int suspiciousWindowSeconds, int suspiciousThreshold,
+                  Path claimsCsvPath, Path auditLogPath, Path summaryReportPath, Properties props) {
         this.workerCount = workerCount;
         this.backlogCapacity = backlogCapacity;
         this.externalCheckTimeoutMs = externalCheckTimeoutMs;
@@ -28,15 +93,90 @@ public class Config{
         this.claimsCsvPath = claimsCsvPath;
         this.auditLogPath = auditLogPath;
         this.summaryReportPath = summaryReportPath;
+        this.workerMode = WorkerMode.valueOf(props.getProperty("workerMode", "FIXED").trim().toUpperCase());
+        this.maxInFlightClaims = Integer.parseInt(props.getProperty("maxInFlightClaims", "10000"));
+        this.externalCheckLatencyMs = Integer.parseInt(props.getProperty("externalCheckLatencyMs", "0"));
+        this.retryBaseDelayMs = Integer.parseInt(props.getProperty("retryBaseDelayMs", "100"));
+        this.retryMaxDelayMs = Integer.parseInt(props.getProperty("retryMaxDelayMs", "5000"));
+        this.auditFormat = AuditLogger.Format.valueOf(props.getProperty("auditFormat", "TEXT").trim().toUpperCase());
+        this.auditDurability = AuditLogger.Durability.valueOf(props.getProperty("auditDurability", "BATCH").trim().toUpperCase());
+        this.auditFsyncIntervalMs = Integer.parseInt(props.getProperty("auditFsyncIntervalMs", "1000"));
+        this.auditQueueCapacity = Integer.parseInt(props.getProperty("auditQueueCapacity", "65536"));
+        this.auditHistoryMaxClaims = Integer.parseInt(props.getProperty("auditHistoryMaxClaims", "10000"));
+        this.auditHistoryWindowSeconds = Integer.parseInt(props.getProperty("auditHistoryWindowSeconds", "0"));
+        this.ingestionParallelism = Integer.parseInt(props.getProperty("ingestionParallelism", "1"));
+        this.ingestionChunkBytes = Integer.parseInt(props.getProperty("ingestionChunkBytes", "8388608"));
+        this.ingestionBatchSize = Math.max(1, Integer.parseInt(props.getProperty("ingestionBatchSize", "256")));
+        this.ingestionMode = IngestionMode.valueOf(props.getProperty("ingestionMode", "ONCE").trim().toUpperCase());
+        List<Path> follow = new ArrayList<>();
+        for (String p : props.getProperty("followPaths", claimsCsvPath.toString()).split(",")) {
+            if (!p.isBlank()) follow.add(Path.of(p.trim()));
+        }
+        this.followPaths = List.copyOf(follow);
+        this.checkpointPath = Path.of(props.getProperty("checkpointPath", "ingestion.checkpoint"));
+        String store = props.getProperty("idempotencyStorePath", "").trim();
+        this.idempotencyStorePath = store.isEmpty() ? null : Path.of(store);
+        this.idempotencyInitialCapacity = Integer.parseInt(props.getProperty("idempotencyInitialCapacity", "65536"));
+        this.idempotencyBloomBitsPerId = Integer.parseInt(props.getProperty("idempotencyBloomBitsPerId", "10"));
+        this.admissionControl = Boolean.parseBoolean(props.getProperty("admissionControl", "false").trim());
+        this.admissionMinRate = Double.parseDouble(props.getProperty("admissionMinRate", "10"));
+        this.admissionMaxRate = Double.parseDouble(props.getProperty("admissionMaxRate", "100000"));
+        this.admissionIncreaseStep = Double.parseDouble(props.getProperty("admissionIncreaseStep", "50"));
+        this.admissionDecreaseFactor = Double.parseDouble(props.getProperty("admissionDecreaseFactor", "0.7"));
+        this.admissionTargetDepth = Double.parseDouble(props.getProperty("admissionTargetDepth", "0.8"));
+        this.admissionQueueDelayTargetMs = Integer.parseInt(props.getProperty("admissionQueueDelayTargetMs", "1000"));
+        this.admissionLatencyTargetMs = Integer.parseInt(props.getProperty("admissionLatencyTargetMs", "500"));
+        this.admissionMaxErrorRatio = Double.parseDouble(props.getProperty("admissionMaxErrorRatio", "0.3"));
+        String metrics = props.getProperty("metricsPath", "").trim();
+        this.metricsPath = metrics.isEmpty() ? null : Path.of(metrics);
+        this.metricsIntervalMs = Integer.parseInt(props.getProperty("metricsIntervalMs", "1000"));
+        this.metricsJmx = Boolean.parseBoolean(props.getProperty("metricsJmx", "true").trim());
+        this.summaryIntervalMs = Integer.parseInt(props.getProperty("summaryIntervalMs", "0"));
+        String journal = props.getProperty("journalPath", "").trim();
+        this.journalPath = journal.isEmpty() ? null : Path.of(journal);
+        this.journalSegmentBytes = Long.parseLong(props.getProperty("journalSegmentBytes", "67108864"));
+        this.journalFsync = Boolean.parseBoolean(props.getProperty("journalFsync", "false").trim());
+        this.partitions = Integer.parseInt(props.getProperty("partitions", "1"));
+        this.externalCheckBatchSize = Integer.parseInt(props.getProperty("externalCheckBatchSize", "1"));
+        this.externalCheckLingerMs = Integer.parseInt(props.getProperty("externalCheckLingerMs", "5"));
+        this.schedulingPolicy = Scheduling.valueOf(props.getProperty("schedulingPolicy", "STRICT").trim().toUpperCase());
+        this.schedulingPriorityWeights = perEnum(props.getProperty("schedulingPriorityWeights", "URGENT:4,NORMAL:1"),
+                Claim.Priority.class, 1);
+        this.schedulingTypeWeights = perEnum(props.getProperty("schedulingTypeWeights", ""), Claim.Type.class, 1);
+        this.schedulingAgingMs = Long.parseLong(props.getProperty("schedulingAgingMs", "2000"));
+        this.schedulingSlaMs = perEnum(props.getProperty("schedulingSlaMs", "URGENT:3600000,NORMAL:86400000"),
+                Claim.Priority.class, 86_400_000);
+    }
+
+    // "NAME:value,..." to values indexed by ordinal; names not listed get defaultValue
+    private static <E extends Enum<E>> long[] perEnum(String spec, Class<E> type, long defaultValue) {
+        long[] values = new long[type.getEnumConstants().length];
+        Arrays.fill(values, defaultValue);
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) continue;
+            String[] kv = entry.split(":");
+            if (kv.length != 2) throw new IllegalArgumentException("Expected NAME:value, got " + entry);
+            values[Enum.valueOf(type, kv[0].trim().toUpperCase()).ordinal()] = Long.parseLong(kv[1].trim());
+        }
+        return values;
     }
 
     public static Config load(String[] args) throws IOException {
+        return fromProperties(loadProperties(args));
+    }
+
+    // The properties file named by args[0], or none
+    public static Properties loadProperties(String[] args) throws IOException {
         Properties props = new Properties();
-        if (args.length > 0) {
+        if (args.length > 0 && !args[0].isEmpty()) {
             try (FileInputStream fis = new FileInputStream(args[0])) {
                 props.load(fis);
             }
         }
+        return props;
+    }
+
+    public static Config fromProperties(Properties props) {
         int workerCount = Integer.parseInt(props.getProperty("workerCount", "8"));
         int backlogCapacity = Integer.parseInt(props.getProperty("backlogCapacity", "100"));
         int externalCheckTimeoutMs = Integer.parseInt(props.getProperty("externalCheckTimeoutMs", "1000"));
@@ -48,7 +188,7 @@ public class Config{
         Path summaryReportPath = Path.of(props.getProperty("summaryReportPath", "summary.txt"));
 
         return new Config(workerCount, backlogCapacity, externalCheckTimeoutMs, retryLimit,
-                suspiciousWindowSeconds, suspiciousThreshold, claimsCsvPath, auditLogPath, summaryReportPath);
+                suspiciousWindowSeconds, suspiciousThreshold, claimsCsvPath, auditLogPath, summaryReportPath, props);
     }
 
     public int getWorkerCount() { return workerCount; }
@@ -60,4 +200,51 @@ public class Config{
     public Path getClaimsCsvPath() { return claimsCsvPath; }
     public Path getAuditLogPath() { return auditLogPath; }
     public Path getSummaryReportPath() { return summaryReportPath; }
+    public WorkerMode getWorkerMode() { return workerMode; }
+    public int getBacklogShards() { return workerMode == WorkerMode.SHARDED ? workerCount : 1; }
+    public int getMaxInFlightClaims() { return maxInFlightClaims; }
+    public int getExternalCheckLatencyMs() { return externalCheckLatencyMs; }
+    public int getRetryBaseDelayMs() { return retryBaseDelayMs; }
+    public int getRetryMaxDelayMs() { return retryMaxDelayMs; }
+    public AuditLogger.Format getAuditFormat() { return auditFormat; }
+    public AuditLogger.Durability getAuditDurability() { return auditDurability; }
+    public int getAuditFsyncIntervalMs() { return auditFsyncIntervalMs; }
+    public int getAuditQueueCapacity() { return auditQueueCapacity; }
+    public int getAuditHistoryMaxClaims() { return auditHistoryMaxClaims; }
+    public int getAuditHistoryWindowSeconds() { return auditHistoryWindowSeconds; }
+    public int getIngestionParallelism() { return ingestionParallelism; }
+    public int getIngestionChunkBytes() { return ingestionChunkBytes; }
+    public int getIngestionBatchSize() { return ingestionBatchSize; }
+    public IngestionMode getIngestionMode() { return ingestionMode; }
+    public List<Path> getFollowPaths() { return followPaths; }
+    public Path getCheckpointPath() { return checkpointPath; }
+    // Null when processed claim IDs are kept in memory only
+    public Path getIdempotencyStorePath() { return idempotencyStorePath; }
+    public int getIdempotencyInitialCapacity() { return idempotencyInitialCapacity; }
+    public int getIdempotencyBloomBitsPerId() { return idempotencyBloomBitsPerId; }
+    public boolean isAdmissionControl() { return admissionControl; }
+    public double getAdmissionMinRate() { return admissionMinRate; }
+    public double getAdmissionMaxRate() { return admissionMaxRate; }
+    public double getAdmissionIncreaseStep() { return admissionIncreaseStep; }
+    public double getAdmissionDecreaseFactor() { return admissionDecreaseFactor; }
+    public double getAdmissionTargetDepth() { return admissionTargetDepth; }
+    public int getAdmissionQueueDelayTargetMs() { return admissionQueueDelayTargetMs; }
+    public int getAdmissionLatencyTargetMs() { return admissionLatencyTargetMs; }
+    public double getAdmissionMaxErrorRatio() { return admissionMaxErrorRatio; }
+    // Null when no snapshot file is written
+    public Path getMetricsPath() { return metricsPath; }
+    public int getMetricsIntervalMs() { return metricsIntervalMs; }
+    public boolean isMetricsJmx() { return metricsJmx; }
+    public int getSummaryIntervalMs() { return summaryIntervalMs; }
+    public Path getJournalPath() { return journalPath; }
+    public long getJournalSegmentBytes() { return journalSegmentBytes; }
+    public boolean isJournalFsync() { return journalFsync; }
+    public int getPartitions() { return partitions; }
+    public int getExternalCheckBatchSize() { return externalCheckBatchSize; }
+    public int getExternalCheckLingerMs() { return externalCheckLingerMs; }
+    public Scheduling getSchedulingPolicy() { return schedulingPolicy; }
+    public long[] getSchedulingPriorityWeights() { return schedulingPriorityWeights.clone(); }
+    public long[] getSchedulingTypeWeights() { return schedulingTypeWeights.clone(); }
+    public long getSchedulingAgingMs() { return schedulingAgingMs; }
+    public long[] getSchedulingSlaMs() { return schedulingSlaMs.clone(); }
 }
\ No newline at end of file
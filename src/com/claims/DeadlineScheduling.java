@@ -0,0 +1,64 @@
+package com.claims;
+
+import com.claims.model.Claim;
+
+import java.util.TreeSet;
+
+// Earliest deadline first. A claim is due its SLA target for its priority after its filing
+// timestamp, and the ready slot whose head claim is due first is served next, ties in the order
+// they became ready. Waiting is bounded when claims arrive roughly in filing order, as with live
+// intake; replaying a file with shuffled timestamps serves the longest-overdue claims first.
+public class DeadlineScheduling implements SchedulingPolicy {
+    private final long[] slaMs;
+
+    // SLA targets indexed by Claim.Priority ordinal
+    public DeadlineScheduling(long[] slaMs) {
+        this.slaMs = slaMs.clone();
+    }
+
+    @Override
+    public ReadySet newReadySet() {
+        return new ReadySet() {
+            // Entries rather than slots, so a key never changes while it is in the set
+            private final TreeSet<Entry> entries = new TreeSet<>();
+            private long sequence = 0;
+
+            @Override
+            public void add(ClaimBacklog.ReadySlot slot) {
+                Claim head = slot.head();
+                long deadline = head.epochSecond * 1000 + slaMs[slot.priority.ordinal()];
+                entries.add(new Entry(slot, deadline, sequence++));
+            }
+
+            @Override
+            public ClaimBacklog.ReadySlot poll(long nowNanos) {
+                Entry entry = entries.pollFirst();
+                return entry == null ? null : entry.slot;
+            }
+
+            @Override
+            public ClaimBacklog.ReadySlot pollLast() {
+                Entry entry = entries.pollLast();
+                return entry == null ? null : entry.slot;
+            }
+        };
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final ClaimBacklog.ReadySlot slot;
+        final long deadlineMs;
+        final long sequence;
+
+        Entry(ClaimBacklog.ReadySlot slot, long deadlineMs, long sequence) {
+            this.slot = slot;
+            this.deadlineMs = deadlineMs;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int c = Long.compare(deadlineMs, other.deadlineMs);
+            return c != 0 ? c : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -2,32 +2,196 @@ package com.claims;
 
 import com.claims.model.Claim;
 
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class ExternalCheck {
     public enum Result { SUCCESS, TRANSIENT_ERROR, PERMANENT_ERROR, TIMEOUT }
 
-    private static final Random random = new Random();
+    // Shared by every check. Calls run on virtual threads, so a slow downstream call does not
+    // pin a platform thread and tens of thousands of checks can be in flight at once
+    private static final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ExternalCheck-", 1).factory());
+    // Single timer for all in-flight checks; cancelled timers are dropped from its queue right away
+    private static final ScheduledThreadPoolExecutor timeouts = new ScheduledThreadPoolExecutor(1, daemonThreads("ExternalCheck-Timeout"));
+
+    // Simulated downstream latency per call, single or batched
+    private static volatile int simulatedLatencyMs = 0;
+
+    // Request coalescing: with batchSize > 1, checks are collected until batchSize are waiting or
+    // the oldest has waited lingerMs, then sent as one multi-claim call
+    private static volatile int batchSize = 1;
+    private static volatile long lingerNanos = 0;
+    private static final Object batchLock = new Object();
+    // Guarded by batchLock
+    private static List<Pending> batch = new ArrayList<>();
+    private static ScheduledFuture<?> lingerTimer;
+
+    static {
+        timeouts.setRemoveOnCancelPolicy(true);
+    }
+
+    public static void setSimulatedLatencyMs(int latencyMs) {
+        simulatedLatencyMs = latencyMs;
+    }
+
+    // batchSize <= 1 turns batching off
+    public static void setBatching(int size, int lingerMs) {
+        lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        batchSize = Math.max(1, size);
+    }
 
     public static Result check(Claim claim, int timeoutMs) {
-        Callable<Result> task = () -> {
-            int r = random.nextInt(100);
-            if (r < 70) return Result.SUCCESS;
-            if (r < 85) return Result.TRANSIENT_ERROR;
-            return Result.PERMANENT_ERROR;
-        };
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        Future<Result> future = executor.submit(task);
-        try {
-            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
-        } catch (TimeoutException e) {
-            return Result.TIMEOUT;
-        } catch (Exception e) {
-            return Result.PERMANENT_ERROR;
-        } finally {
-            executor.shutdownNow();
+        return checkAsync(claim, timeoutMs).join();
+    }
+
+    /**
+     * Starts a check on the shared executor. The future completes with TIMEOUT if no
+     * answer arrives within timeoutMs (the call is then interrupted), and with
+     * PERMANENT_ERROR if the call fails. It never completes exceptionally.
+     */
+    public static CompletableFuture<Result> checkAsync(Claim claim, int timeoutMs) {
+        if (batchSize > 1) return enqueue(claim, timeoutMs);
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        Future<?> call = executor.submit(() -> {
+            try {
+                result.complete(call(claim));
+            } catch (Exception e) {
+                result.complete(Result.PERMANENT_ERROR);
+            }
+        });
+        ScheduledFuture<?> timer = timeouts.schedule(() -> {
+            if (result.complete(Result.TIMEOUT)) call.cancel(true);
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+        result.whenComplete((r, e) -> timer.cancel(false));
+        return result;
+    }
+
+    // The timeout runs from the enqueue, so lingering counts against it
+    private static CompletableFuture<Result> enqueue(Claim claim, int timeoutMs) {
+        Pending pending = new Pending(claim);
+        ScheduledFuture<?> timer = timeouts.schedule(() -> pending.result.complete(Result.TIMEOUT),
+                timeoutMs, TimeUnit.MILLISECONDS);
+        pending.result.whenComplete((r, e) -> timer.cancel(false));
+        List<Pending> full = null;
+        synchronized (batchLock) {
+            batch.add(pending);
+            if (batch.size() >= batchSize) {
+                full = takeBatch();
+            } else if (batch.size() == 1) {
+                lingerTimer = timeouts.schedule(ExternalCheck::flushLingering, lingerNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) send(full);
+        return pending.result;
+    }
+
+    private static void flushLingering() {
+        List<Pending> lingering;
+        synchronized (batchLock) {
+            if (batch.isEmpty()) return;
+            lingering = takeBatch();
         }
+        send(lingering);
+    }
+
+    // Caller holds batchLock
+    private static List<Pending> takeBatch() {
+        List<Pending> taken = batch;
+        batch = new ArrayList<>(batchSize);
+        if (lingerTimer != null) {
+            lingerTimer.cancel(false);
+            lingerTimer = null;
+        }
+        return taken;
+    }
+
+    /**
+     * One call for the whole batch, its results fanned out to the waiting futures. Requests
+     * that already timed out are left out, and the call is interrupted once every request of
+     * the batch has timed out, as a single check is. Only timeouts count towards that, so the
+     * call never interrupts itself as it completes its own requests.
+     */
+    private static void send(List<Pending> requests) {
+        requests.removeIf(p -> p.result.isDone());
+        if (requests.isEmpty()) return;
+        Metrics.CHECK_BATCHES.increment();
+        Metrics.CHECK_BATCHED_CLAIMS.add(requests.size());
+        Batch batch = new Batch(requests.size());
+        for (Pending p : requests) {
+            // TIMEOUT only ever comes from the request's timer
+            p.result.whenComplete((r, e) -> {
+                if (r == Result.TIMEOUT) batch.timedOut();
+            });
+        }
+        batch.call = executor.submit(() -> {
+            List<Claim> claims = new ArrayList<>(requests.size());
+            for (Pending p : requests) claims.add(p.claim);
+            try {
+                List<Result> results = callBatch(claims);
+                for (int i = 0; i < requests.size(); i++) requests.get(i).result.complete(results.get(i));
+            } catch (Exception e) {
+                for (Pending p : requests) p.result.complete(Result.PERMANENT_ERROR);
+            }
+        });
+        // The last request may have timed out before there was a call to interrupt
+        if (batch.open.get() == 0) batch.call.cancel(true);
+    }
+
+    // Bulk verification: one round trip for all the claims
+    private static List<Result> callBatch(List<Claim> claims) throws InterruptedException {
+        if (simulatedLatencyMs > 0) Thread.sleep(simulatedLatencyMs);
+        List<Result> results = new ArrayList<>(claims.size());
+        for (Claim claim : claims) results.add(decide());
+        return results;
+    }
+
+    private static Result call(Claim claim) throws InterruptedException {
+        if (simulatedLatencyMs > 0) Thread.sleep(simulatedLatencyMs);
+        return decide();
+    }
+
+    private static Result decide() {
+        int r = ThreadLocalRandom.current().nextInt(100);
+        if (r < 70) return Result.SUCCESS;
+        if (r < 85) return Result.TRANSIENT_ERROR;
+        return Result.PERMANENT_ERROR;
+    }
+
+    // One multi-claim call and the number of its requests that have not timed out
+    private static final class Batch {
+        final AtomicInteger open;
+        volatile Future<?> call;
+
+        Batch(int requests) {
+            this.open = new AtomicInteger(requests);
+        }
+
+        void timedOut() {
+            if (open.decrementAndGet() > 0) return;
+            Future<?> running = call;
+            if (running != null) running.cancel(true);
+        }
+    }
+
+    private static final class Pending {
+        final Claim claim;
+        final CompletableFuture<Result> result = new CompletableFuture<>();
+
+        Pending(Claim claim) {
+            this.claim = claim;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
     }
 }
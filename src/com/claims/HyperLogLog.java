@@ -0,0 +1,96 @@
+package com.claims;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// HyperLogLog distinct counter over 64-bit hashes: 2^14 registers (64 KB) whatever the count,
+// with a standard error of about 0.8%. Until EXACT_LIMIT distinct hashes have been seen it also
+// keeps them in a small open-addressing set and reports that exact count, so small runs are not
+// off by register collisions. Register updates are lock-free; the exact set is guarded by this.
+public class HyperLogLog {
+    private static final int P = 14;
+    private static final int M = 1 << P;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / M);
+    private static final int EXACT_LIMIT = 4096;
+
+    private final AtomicIntegerArray registers = new AtomicIntegerArray(M);
+    // Non-zero hashes at half load at most; null once EXACT_LIMIT is passed
+    private volatile long[] exact = new long[2 * EXACT_LIMIT];
+    private int exactSize = 0;
+
+    // hash must be well mixed, e.g. ClaimIdempotencyTracker.mix
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - P));
+        int rank = Long.numberOfLeadingZeros(hash << P | 1L << (P - 1)) + 1;
+        int current;
+        while ((current = registers.get(index)) < rank) {
+            if (registers.compareAndSet(index, current, rank)) break;
+        }
+        if (exact != null) addExact(hash == 0 ? 1 : hash);
+    }
+
+    public long estimate() {
+        synchronized (this) {
+            if (exact != null) return exactSize;
+        }
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < M; i++) {
+            int r = registers.get(i);
+            sum += Math.scalb(1.0, -r);
+            if (r == 0) zeros++;
+        }
+        double raw = ALPHA * M * M / sum;
+        if (raw <= 2.5 * M && zeros > 0) return Math.round(M * Math.log((double) M / zeros));
+        return Math.round(raw);
+    }
+
+    // Registers, then the exact set while it is kept; read back by mergeFrom
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        for (int i = 0; i < M; i++) out.writeByte(registers.get(i));
+        long[] table = exact;
+        out.writeInt(table == null ? -1 : exactSize);
+        if (table == null) return;
+        for (long hash : table) {
+            if (hash != 0) out.writeLong(hash);
+        }
+    }
+
+    // Makes this counter count the union of what it saw and what the written counter saw
+    public void mergeFrom(DataInput in) throws IOException {
+        for (int i = 0; i < M; i++) {
+            int rank = in.readByte();
+            int current;
+            while ((current = registers.get(i)) < rank) {
+                if (registers.compareAndSet(i, current, rank)) break;
+            }
+        }
+        int n = in.readInt();
+        if (n < 0) {
+            synchronized (this) {
+                exact = null;
+            }
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            long hash = in.readLong();
+            if (exact != null) addExact(hash);
+        }
+    }
+
+    private synchronized void addExact(long hash) {
+        long[] table = exact;
+        if (table == null) return;
+        int mask = table.length - 1;
+        for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+            if (table[i] == hash) return;
+            if (table[i] == 0) {
+                table[i] = hash;
+                if (++exactSize > EXACT_LIMIT) exact = null;
+                return;
+            }
+        }
+    }
+}
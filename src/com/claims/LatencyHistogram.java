@@ -0,0 +1,68 @@
+package com.claims;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free log-linear histogram of durations in microseconds: 8 sub-buckets per power of two,
+// so any recorded value is reported within 12.5%. Recording never allocates.
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;
+    public static final int BUCKETS = 64 * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000);
+    }
+
+    public void recordMicros(long micros) {
+        counts.incrementAndGet(index(Math.max(0, micros)));
+    }
+
+    // Copies the counts into into (length BUCKETS), optionally resetting them
+    public void copyTo(long[] into, boolean reset) {
+        for (int i = 0; i < BUCKETS; i++) {
+            into[i] = reset ? counts.getAndSet(i, 0) : counts.get(i);
+        }
+    }
+
+    // Adds counts (length BUCKETS) taken from another histogram
+    public void add(long[] counts) {
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] != 0) this.counts.addAndGet(i, counts[i]);
+        }
+    }
+
+    // Upper bound in micros of the bucket holding the q-th quantile (0 < q <= 1); 0 if empty
+    public static long percentileMicros(long[] counts, double q) {
+        long total = 0;
+        for (long c : counts) total += c;
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return i + 1 < BUCKETS ? lowerBound(i + 1) - 1 : Long.MAX_VALUE;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public static long count(long[] counts) {
+        long total = 0;
+        for (long c : counts) total += c;
+        return total;
+    }
+
+    static int index(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB - 1);
+        return (exp - SUB_BITS + 1) * SUB + sub;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB) return index;
+        int exp = index / SUB + SUB_BITS - 1;
+        return (long) (SUB + index % SUB) << (exp - SUB_BITS);
+    }
+}
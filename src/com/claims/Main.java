@@ -1,15 +1,46 @@
 package com.claims;
 
+import com.claims.model.Claim;
+
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class Main {
     public static void main(String[] args) throws IOException, InterruptedException {
         Config config = Config.load(args);
-        AuditLogger auditLogger = new AuditLogger(config.getAuditLogPath());
-        SummaryReport summaryReport = new SummaryReport(config.getSummaryReportPath());
+        PartitionCoordinator.checkStoredPartitions(config);
+        if (config.getPartitions() > 1) {
+            new PartitionCoordinator(args, config).run();
+            return;
+        }
+        ExternalCheck.setSimulatedLatencyMs(config.getExternalCheckLatencyMs());
+        ExternalCheck.setBatching(config.getExternalCheckBatchSize(), config.getExternalCheckLingerMs());
+        AuditHistory auditHistory = new AuditHistory(config.getAuditHistoryMaxClaims(),
+                config.getAuditHistoryWindowSeconds());
+        AuditLogger auditLogger = new AuditLogger(config.getAuditLogPath(), config.getAuditFormat(), config.getAuditDurability(),
+                config.getAuditFsyncIntervalMs(), config.getAuditQueueCapacity(), auditHistory);
+        SummaryReport summaryReport = new SummaryReport(config.getSummaryReportPath(), config.getSummaryIntervalMs());
 
-        ClaimBacklog backlog = new ClaimBacklog(config.getBacklogCapacity(), auditLogger);
-        ClaimIdempotencyTracker idempotencyTracker = new ClaimIdempotencyTracker();
+        BacklogJournal journal = null;
+        List<Claim> recovered = List.of();
+        if (config.getJournalPath() != null) {
+            journal = new BacklogJournal(config.getJournalPath(), config.getJournalSegmentBytes(), config.isJournalFsync());
+            long start = System.nanoTime();
+            recovered = journal.recover();
+            if (!recovered.isEmpty()) {
+                System.out.printf("Recovered %d claims from the journal in %d ms%n", recovered.size(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }
+        ClaimBacklog backlog = new ClaimBacklog(config.getBacklogCapacity(), auditLogger, journal,
+                config.getBacklogShards(), SchedulingPolicy.of(config));
+        backlog.restore(recovered);
+        ClaimIdempotencyTracker idempotencyTracker = new ClaimIdempotencyTracker(config.getIdempotencyStorePath(),
+                config.getIdempotencyInitialCapacity(), config.getIdempotencyBloomBitsPerId());
+        // Compaction drops the journal's record of finished claims, so the store keeps them first
+        if (journal != null) journal.setBeforeCompaction(idempotencyTracker::force);
 
         SuspiciousMonitor suspiciousMonitor = new SuspiciousMonitor(
                 config.getSuspiciousThreshold(),
@@ -18,11 +49,14 @@ public class Main {
                 backlog
         );
 
+        AdmissionController admission = config.isAdmissionControl() ? new AdmissionController(backlog, config) : null;
+
         ClaimIngestion ingestion = new ClaimIngestion(
                 config.getClaimsCsvPath(),
                 backlog,
                 suspiciousMonitor,
-                config
+                config,
+                admission
         );
 
         PolicySerialScheduler scheduler = new PolicySerialScheduler(
@@ -30,38 +64,85 @@ public class Main {
                 idempotencyTracker,
                 auditLogger,
                 summaryReport,
-                config
+                config,
+                admission
         );
 
         Thread monitorThread = new Thread(suspiciousMonitor, "SuspiciousMonitor");
         monitorThread.start();
 
+        summaryReport.attach(suspiciousMonitor, scheduler.getRetryScheduler(), admission);
+        Thread summaryThread = new Thread(summaryReport, "SummaryReport");
+        summaryThread.setDaemon(true);
+        summaryThread.start();
+
+        registerGauges(config, backlog, scheduler, admission);
+        if (config.isMetricsJmx()) MetricsReporter.registerMBean();
+        MetricsReporter metricsReporter = new MetricsReporter(config.getMetricsPath(), config.getMetricsIntervalMs());
+        Thread metricsThread = new Thread(metricsReporter, "MetricsReporter");
+        metricsThread.setDaemon(true);
+        metricsThread.start();
+
+        Thread admissionThread = null;
+        if (admission != null) {
+            admissionThread = new Thread(admission, "AdmissionController");
+            admissionThread.setDaemon(true);
+            admissionThread.start();
+        }
+
         Thread ingestionThread = new Thread(ingestion, "ClaimIngestion");
         ingestionThread.start();
 
         scheduler.startWorkers();
 
-        // Graceful shutdown: listen for SIGINT, SIGTERM
+        // Graceful shutdown: listen for SIGINT, SIGTERM. The hook waits for main to drain the
+        // backlog and write the summary, since the JVM halts as soon as hooks return. Hooks also
+        // run on a normal exit, after main is done; there is nothing left to stop then.
+        CountDownLatch finished = new CountDownLatch(1);
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (finished.getCount() == 0) return;
             System.out.println("Shutdown signal received. Initiating graceful shutdown...");
             ingestion.stop();
             scheduler.shutdown();
             suspiciousMonitor.stop();
+            try {
+                finished.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {}
         }));
 
         // Wait for ingestion to finish
         ingestionThread.join();
+        backlog.closeIntake();
+        if (admission != null) admission.stop();
         // Wait for scheduler to finish all claims
         scheduler.awaitFinish();
+        scheduler.shutdown();
 
         // Stop monitor
         suspiciousMonitor.stop();
         monitorThread.join();
 
         // Final summary
-        summaryReport.write(auditLogger.getInMemoryHistory(), suspiciousMonitor.getSuspiciousClaims());
+        summaryReport.stop();
+        summaryReport.write();
         auditLogger.close();
+        idempotencyTracker.close();
+        if (journal != null) journal.close();
+        metricsReporter.stop();
+        metricsReporter.writeSnapshot();
 
         System.out.println("Processing complete. See summary.txt and audit.log.");
+        finished.countDown();
+    }
+
+    private static void registerGauges(Config config, ClaimBacklog backlog, PolicySerialScheduler scheduler,
+                                       AdmissionController admission) {
+        Metrics.gauge("backlog.queued.urgent", () -> backlog.size(Claim.Priority.URGENT));
+        Metrics.gauge("backlog.queued.normal", () -> backlog.size(Claim.Priority.NORMAL));
+        Metrics.gauge("backlog.paused", () -> backlog.isPaused() ? 1 : 0);
+        Metrics.gauge("retry.pending", () -> scheduler.getRetryScheduler().pendingCount());
+        Metrics.gauge(MetricsReporter.WORKER_SLOTS, () -> config.getWorkerMode() == Config.WorkerMode.VIRTUAL
+                ? config.getMaxInFlightClaims() : config.getWorkerCount());
+        if (admission != null) Metrics.gauge("admission.rate", () -> (long) admission.getRate());
     }
 }
\ No newline at end of file
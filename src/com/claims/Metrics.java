@@ -0,0 +1,78 @@
+package com.claims;
+
+import com.claims.model.Claim;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Process-wide metrics registry. Counters are LongAdders and latencies LatencyHistograms, so
+// recording on a hot path is one uncontended add; hot paths keep the handles in static fields.
+// Gauges are sampled only when a snapshot is taken. Read through MetricsReporter or JMX.
+public final class Metrics {
+    private static final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+
+    public static final LongAdder INGESTED = counter("ingest.claims");
+    public static final LongAdder RETRIES = counter("retry.scheduled");
+    public static final LongAdder WORKER_BUSY_NANOS = counter("worker.busyNanos");
+    public static final LongAdder AUDIT_EVENTS = counter("audit.events");
+    // Audit events that had to wait for room in the writer's queue
+    public static final LongAdder AUDIT_QUEUE_FULL = counter("audit.queueFull");
+    // Whole policies moved to an idle shard (workerMode=SHARDED)
+    public static final LongAdder STEALS = counter("backlog.steals");
+    // Multi-claim external check calls and the claims they carried (externalCheckBatchSize > 1)
+    public static final LongAdder CHECK_BATCHES = counter("check.batches");
+    public static final LongAdder CHECK_BATCHED_CLAIMS = counter("check.batchedClaims");
+    // Time from entering a policy queue to being taken by a worker
+    public static final LatencyHistogram BACKLOG_WAIT = histogram("backlog.waitMicros");
+    // The same wait for the policies that waited longest; a histogram per policy would grow with
+    // the number of policies
+    public static final SlowestPolicies SLOWEST_POLICY_WAITS = new SlowestPolicies("backlog.slowestPolicyWaitMicros", 10);
+    // Time from logEvent to the event's batch being written (and forced, if durability asks)
+    public static final LatencyHistogram AUDIT_EVENT_LATENCY = histogram("audit.eventLatencyMicros");
+    public static final LatencyHistogram AUDIT_COMMIT = histogram("audit.commitMicros");
+    private static final LatencyHistogram[] CHECK_LATENCY = new LatencyHistogram[ExternalCheck.Result.values().length];
+    // BACKLOG_WAIT per scheduling class, to check the tail of each stays bounded
+    private static final LatencyHistogram[] BACKLOG_CLASS_WAIT = new LatencyHistogram[SchedulingPolicy.CLASSES];
+
+    static {
+        for (ExternalCheck.Result r : ExternalCheck.Result.values()) {
+            CHECK_LATENCY[r.ordinal()] = histogram("check." + r.name() + ".latencyMicros");
+        }
+        for (Claim.Priority p : Claim.Priority.values()) {
+            for (Claim.Type t : Claim.Type.values()) {
+                BACKLOG_CLASS_WAIT[SchedulingPolicy.classOf(p, t)] = histogram("backlog." + p.name() + "." + t.label + ".waitMicros");
+            }
+        }
+    }
+
+    private Metrics() {}
+
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    // Replaces any gauge of the same name
+    public static void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public static LatencyHistogram checkLatency(ExternalCheck.Result result) {
+        return CHECK_LATENCY[result.ordinal()];
+    }
+
+    public static LatencyHistogram backlogWait(Claim.Priority priority, Claim.Type type) {
+        return BACKLOG_CLASS_WAIT[SchedulingPolicy.classOf(priority, type)];
+    }
+
+    static Map<String, LongAdder> counters() { return counters; }
+    static Map<String, LatencyHistogram> histograms() { return histograms; }
+    static Map<String, LongSupplier> gauges() { return gauges; }
+}
@@ -0,0 +1,198 @@
+package com.claims;
+
+import javax.management.*;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Writes a snapshot of Metrics to a file every interval, replacing the previous one atomically.
+// Counters show their total and rate over the interval; histograms show the percentiles of the
+// values recorded in the interval. Also publishes all metrics as the JMX MBean com.claims:type=Metrics.
+public class MetricsReporter implements Runnable {
+    static final String WORKER_SLOTS = "worker.slots";
+
+    private final Path path;
+    private final long intervalMs;
+    private volatile boolean stopped = false;
+
+    private final Map<String, Long> lastCounters = new HashMap<>();
+    private final Map<String, long[]> lastHistograms = new HashMap<>();
+    private final long[] current = new long[LatencyHistogram.BUCKETS];
+    private long lastNanos = System.nanoTime();
+
+    // path null: JMX only
+    public MetricsReporter(Path path, long intervalMs) {
+        this.path = path;
+        this.intervalMs = intervalMs;
+    }
+
+    public void stop() { stopped = true; }
+
+    public static void registerMBean() {
+        try {
+            ObjectName name = new ObjectName("com.claims:type=Metrics");
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) server.registerMBean(new Bean(), name);
+        } catch (JMException e) {
+            System.err.println("Metrics MBean error: " + e);
+        }
+    }
+
+    @Override
+    public void run() {
+        if (path == null) return;
+        while (!stopped) {
+            try {
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException e) {
+                break;
+            }
+            writeSnapshot();
+        }
+    }
+
+    // Called from the reporter thread, or once more by the owner after stop()
+    public synchronized void writeSnapshot() {
+        if (path == null) return;
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-3, (now - lastNanos) / 1e9);
+        lastNanos = now;
+        StringBuilder out = new StringBuilder(4096);
+        out.append("# ").append(LocalDateTime.now()).append(String.format(" interval %.1f s%n", seconds));
+
+        long busyNanos = 0;
+        for (Map.Entry<String, LongAdder> e : Metrics.counters().entrySet()) {
+            long total = e.getValue().sum();
+            long delta = total - lastCounters.getOrDefault(e.getKey(), 0L);
+            lastCounters.put(e.getKey(), total);
+            if (e.getValue() == Metrics.WORKER_BUSY_NANOS) busyNanos = delta;
+            out.append(String.format("%s %d (%.1f/s)%n", e.getKey(), total, delta / seconds));
+        }
+        for (Map.Entry<String, LongSupplier> e : Metrics.gauges().entrySet()) {
+            out.append(e.getKey()).append(' ').append(e.getValue().getAsLong()).append('\n');
+        }
+        LongSupplier slots = Metrics.gauges().get(WORKER_SLOTS);
+        if (slots != null && slots.getAsLong() > 0) {
+            out.append(String.format("worker.utilization %.1f%%%n", 100.0 * busyNanos / (seconds * 1e9 * slots.getAsLong())));
+        }
+        for (Map.Entry<String, LatencyHistogram> e : Metrics.histograms().entrySet()) {
+            e.getValue().copyTo(current, false);
+            long[] last = lastHistograms.computeIfAbsent(e.getKey(), k -> new long[LatencyHistogram.BUCKETS]);
+            long[] delta = new long[LatencyHistogram.BUCKETS];
+            for (int i = 0; i < delta.length; i++) delta[i] = current[i] - last[i];
+            System.arraycopy(current, 0, last, 0, current.length);
+            long count = LatencyHistogram.count(delta);
+            if (count == 0) {
+                out.append(String.format("%s total=%d%n", e.getKey(), LatencyHistogram.count(current)));
+                continue;
+            }
+            out.append(String.format("%s total=%d count=%d p50=%d p90=%d p99=%d max=%d%n", e.getKey(),
+                    LatencyHistogram.count(current), count, LatencyHistogram.percentileMicros(delta, 0.5),
+                    LatencyHistogram.percentileMicros(delta, 0.9), LatencyHistogram.percentileMicros(delta, 0.99),
+                    LatencyHistogram.percentileMicros(delta, 1.0)));
+        }
+        Map<String, Long> slowest = Metrics.SLOWEST_POLICY_WAITS.snapshot();
+        if (!slowest.isEmpty()) {
+            out.append(Metrics.SLOWEST_POLICY_WAITS.name());
+            slowest.forEach((policy, micros) -> out.append(' ').append(policy).append('=').append(micros));
+            out.append('\n');
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer w = Files.newBufferedWriter(tmp)) {
+            w.write(out.toString());
+        } catch (IOException e) {
+            System.err.println("Metrics write error: " + e);
+            return;
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Metrics write error: " + e);
+        }
+    }
+
+    // Read-only attributes: each counter and gauge by name, name.count / .p50 / .p99 / .max for
+    // each histogram (in micros, since start), and the slowest policies as "policy=micros ..." 
+    private static final class Bean implements DynamicMBean {
+        private static final String[] SUFFIXES = { ".count", ".p50", ".p99", ".max" };
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            LongAdder counter = Metrics.counters().get(attribute);
+            if (counter != null) return counter.sum();
+            LongSupplier gauge = Metrics.gauges().get(attribute);
+            if (gauge != null) return gauge.getAsLong();
+            if (attribute.equals(Metrics.SLOWEST_POLICY_WAITS.name())) return slowestPolicies();
+            int dot = attribute.lastIndexOf('.');
+            LatencyHistogram histogram = dot < 0 ? null : Metrics.histograms().get(attribute.substring(0, dot));
+            if (histogram == null) throw new AttributeNotFoundException(attribute);
+            long[] counts = new long[LatencyHistogram.BUCKETS];
+            histogram.copyTo(counts, false);
+            switch (attribute.substring(dot)) {
+                case ".count": return LatencyHistogram.count(counts);
+                case ".p50": return LatencyHistogram.percentileMicros(counts, 0.5);
+                case ".p99": return LatencyHistogram.percentileMicros(counts, 0.99);
+                case ".max": return LatencyHistogram.percentileMicros(counts, 1.0);
+                default: throw new AttributeNotFoundException(attribute);
+            }
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String a : attributes) {
+                try {
+                    list.add(new Attribute(a, getAttribute(a)));
+                } catch (AttributeNotFoundException ignored) {}
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException {
+            throw new MBeanException(new UnsupportedOperationException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attrs = new ArrayList<>();
+            for (String name : Metrics.counters().keySet()) attrs.add(longAttribute(name, "counter"));
+            for (String name : Metrics.gauges().keySet()) attrs.add(longAttribute(name, "gauge"));
+            for (String name : Metrics.histograms().keySet()) {
+                for (String suffix : SUFFIXES) attrs.add(longAttribute(name + suffix, "histogram, micros"));
+            }
+            attrs.add(new MBeanAttributeInfo(Metrics.SLOWEST_POLICY_WAITS.name(), "java.lang.String",
+                    "longest wait of the slowest policies, micros", true, false, false));
+            return new MBeanInfo(Bean.class.getName(), "Claim processing metrics",
+                    attrs.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+
+        private static String slowestPolicies() {
+            StringJoiner joined = new StringJoiner(" ");
+            Metrics.SLOWEST_POLICY_WAITS.snapshot().forEach((policy, micros) -> joined.add(policy + "=" + micros));
+            return joined.toString();
+        }
+
+        private static MBeanAttributeInfo longAttribute(String name, String description) {
+            return new MBeanAttributeInfo(name, "long", description, true, false, false);
+        }
+    }
+}
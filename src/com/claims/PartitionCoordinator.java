@@ -0,0 +1,396 @@
+package com.claims;
+
+import com.claims.model.Claim;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the claims over {@code partitions} worker processes on this host (see {@link PartitionWorker}).
+ * The coordinator keeps ingestion and the suspicious-claim monitor; claims are staged in a backlog
+ * with one shard per partition and streamed over loopback sockets to the worker owning their
+ * policy, which has its own backlog, scheduler, idempotency store and journal. A policy always
+ * maps to the same partition, so per-policy order and serial processing carry over.
+ *
+ * <p>At the end each worker sends back its summary aggregates, which are merged into one
+ * summary, and the workers' text audit logs are merged with the coordinator's by timestamp.
+ */
+public class PartitionCoordinator {
+    // Stream from the coordinator: CLAIM records, then one END
+    static final byte CLAIM = 1;
+    static final byte END = 2;
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+    private static final long FLUSH_INTERVAL_MS = 2;
+    private static final int CONNECT_TIMEOUT_MS = 60_000;
+    private static final Claim.Type[] TYPES = Claim.Type.values();
+    private static final Claim.Priority[] PRIORITIES = Claim.Priority.values();
+
+    private final String[] args;
+    private final Config config;
+    private final Link[] links;
+    private volatile boolean forwarding = true;
+
+    public PartitionCoordinator(String[] args, Config config) {
+        this.args = args;
+        this.config = config;
+        this.links = new Link[config.getPartitions()];
+    }
+
+    public static int partitionOf(String policyNumber, int partitions) {
+        return Math.floorMod(policyNumber.hashCode(), partitions);
+    }
+
+    public void run() throws IOException, InterruptedException {
+        int partitions = links.length;
+        AuditLogger auditLogger = new AuditLogger(config.getAuditLogPath(), config.getAuditFormat(),
+                config.getAuditDurability(), config.getAuditFsyncIntervalMs(), config.getAuditQueueCapacity(),
+                new AuditHistory(config.getAuditHistoryMaxClaims(), config.getAuditHistoryWindowSeconds()));
+        // Aggregates only arrive once the workers finish, so there are no periodic snapshots here
+        SummaryReport summaryReport = new SummaryReport(config.getSummaryReportPath());
+        // Its shards line up with the partitions; intake is audited by the workers
+        ClaimBacklog staging = new ClaimBacklog(config.getBacklogCapacity(), null, null, partitions);
+        SuspiciousMonitor suspiciousMonitor = new SuspiciousMonitor(
+                config.getSuspiciousThreshold(),
+                config.getSuspiciousWindowSeconds(),
+                auditLogger,
+                staging
+        );
+        // No checks run here, so there is no latency signal for admission control
+        ClaimIngestion ingestion = new ClaimIngestion(config.getClaimsCsvPath(), staging, suspiciousMonitor, config);
+
+        List<Process> workers = new ArrayList<>(partitions);
+        try (ServerSocket server = new ServerSocket(0, partitions, InetAddress.getLoopbackAddress())) {
+            for (int i = 0; i < partitions; i++) workers.add(spawn(i, server.getLocalPort()));
+            server.setSoTimeout(CONNECT_TIMEOUT_MS);
+            for (int i = 0; i < partitions; i++) {
+                Link link = new Link(server.accept());
+                int partition = link.in.readInt();
+                if (partition < 0 || partition >= partitions || links[partition] != null) {
+                    throw new IOException("Unexpected partition " + partition);
+                }
+                links[partition] = link;
+            }
+        } catch (IOException e) {
+            for (Process worker : workers) worker.destroy();
+            throw e;
+        }
+
+        Thread monitorThread = new Thread(suspiciousMonitor, "SuspiciousMonitor");
+        monitorThread.start();
+        Thread flusherThread = new Thread(this::flushLoop, "PartitionFlusher");
+        flusherThread.setDaemon(true);
+        flusherThread.start();
+        Thread[] forwarders = new Thread[partitions];
+        for (int i = 0; i < partitions; i++) {
+            int shard = i;
+            forwarders[i] = new Thread(() -> forward(staging, shard), "Forwarder-" + (i + 1));
+            forwarders[i].start();
+        }
+        Thread ingestionThread = new Thread(ingestion, "ClaimIngestion");
+        ingestionThread.start();
+
+        // On a signal, ingestion stops and the workers drain what they already have. Hooks also run
+        // on a normal exit, once run() is done
+        CountDownLatch finished = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (finished.getCount() == 0) return;
+            System.out.println("Shutdown signal received. Initiating graceful shutdown...");
+            ingestion.stop();
+            suspiciousMonitor.stop();
+            try {
+                finished.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {}
+        }));
+
+        ingestionThread.join();
+        staging.closeIntake();
+        for (Thread forwarder : forwarders) forwarder.join();
+        forwarding = false;
+        for (Link link : links) link.end();
+
+        // Each worker answers END with its aggregates once its backlog has drained
+        for (int i = 0; i < partitions; i++) {
+            Link link = links[i];
+            try {
+                summaryReport.mergeState(link.in);
+            } catch (IOException e) {
+                System.err.println("Partition " + i + " sent no summary: " + e);
+            }
+            if (link.dropped > 0) {
+                System.err.println("Partition " + i + " failed; " + link.dropped + " claims were not delivered");
+            }
+            link.socket.close();
+        }
+        for (int i = 0; i < partitions; i++) {
+            int exit = workers.get(i).waitFor();
+            if (exit != 0) System.err.println("Partition " + i + " exited with status " + exit);
+        }
+
+        suspiciousMonitor.stop();
+        monitorThread.join();
+        auditLogger.close();
+        if (config.getAuditFormat() == AuditLogger.Format.TEXT) {
+            mergeAuditLogs(config.getAuditLogPath(), partitions);
+        }
+        summaryReport.attach(suspiciousMonitor, null, null);
+        summaryReport.write();
+
+        System.out.println("Processing complete over " + partitions + " partitions. See summary.txt and audit.log.");
+        finished.countDown();
+    }
+
+    /**
+     * Fails if the idempotency store or the journal holds state from a run over a different number
+     * of partitions: the plain paths for a single process, the ".part-N-of-M" ones otherwise. Claims
+     * would reach other partitions than the ones holding their state, so finished claims would run
+     * again, and a journaled claim could run next to a new copy of itself.
+     */
+    public static void checkStoredPartitions(Config config) throws IOException {
+        int partitions = config.getPartitions();
+        checkStoredPartitions(config.getIdempotencyStorePath(), partitions, Files::exists);
+        checkStoredPartitions(config.getJournalPath(), partitions, BacklogJournal::hasSegments);
+    }
+
+    private static void checkStoredPartitions(Path path, int partitions, StateCheck hasState) throws IOException {
+        if (path == null) return;
+        if (partitions > 1 && hasState.test(path)) throw storedWith(path, 1, partitions);
+        Path parent = path.toAbsolutePath().getParent();
+        if (!Files.isDirectory(parent)) return;
+        Pattern partName = Pattern.compile(Pattern.quote(path.getFileName().toString()) + "\\.part-\\d+-of-(\\d+)");
+        try (var files = Files.list(parent)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Matcher m = partName.matcher(p.getFileName().toString());
+                if (m.matches() && Integer.parseInt(m.group(1)) != partitions && hasState.test(p)) {
+                    throw storedWith(p, Integer.parseInt(m.group(1)), partitions);
+                }
+            }
+        }
+    }
+
+    private static IOException storedWith(Path path, int stored, int partitions) {
+        return new IOException(path + " holds state from a run over " + stored + " partition(s), not " + partitions
+                + "; run with partitions=" + stored + " or remove it");
+    }
+
+    private interface StateCheck {
+        boolean test(Path path) throws IOException;
+    }
+
+    // Same java, classpath and heap options as this JVM
+    private Process spawn(int partition, int port) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (option.startsWith("-X")) command.add(option);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(PartitionWorker.class.getName());
+        command.add(args.length > 0 ? args[0] : "");
+        command.add(Integer.toString(partition));
+        command.add(Integer.toString(links.length));
+        command.add(Integer.toString(port));
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    private void forward(ClaimBacklog staging, int shard) {
+        try {
+            Claim claim;
+            while ((claim = staging.take(shard)) != null) {
+                links[partitionOf(claim.policyNumber, links.length)].send(claim);
+                staging.complete(claim);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Sends are buffered; this bounds how long a claim can sit in a buffer
+    private void flushLoop() {
+        while (forwarding) {
+            for (Link link : links) link.flushIfIdle();
+            try {
+                Thread.sleep(FLUSH_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    static void writeClaim(DataOutputStream out, Claim claim) throws IOException {
+        out.writeByte(CLAIM);
+        out.writeUTF(claim.claimId());
+        out.writeUTF(claim.policyNumber);
+        out.writeInt(claim.claimAmount);
+        out.writeByte(claim.claimType.ordinal());
+        if (claim.claimType == Claim.Type.OTHER) out.writeUTF(claim.typeLabel());
+        out.writeLong(claim.epochSecond);
+        out.writeByte(claim.priorityFlag.ordinal());
+    }
+
+    // The claim following a CLAIM byte
+    static Claim readClaim(DataInputStream in) throws IOException {
+        String claimId = in.readUTF();
+        String policyNumber = in.readUTF();
+        int amount = in.readInt();
+        int type = in.readUnsignedByte();
+        if (type >= TYPES.length) throw new IOException("Bad claim record");
+        // OTHER carries its label, which may be an unknown type's
+        String label = TYPES[type] == Claim.Type.OTHER ? in.readUTF() : null;
+        long epochSecond = in.readLong();
+        int priority = in.readUnsignedByte();
+        if (priority >= PRIORITIES.length) throw new IOException("Bad claim record");
+        if (label != null) return new Claim(claimId, policyNumber, amount, label, epochSecond, PRIORITIES[priority]);
+        return new Claim(claimId, policyNumber, amount, TYPES[type], epochSecond, PRIORITIES[priority]);
+    }
+
+    /**
+     * Merges the partitions' text audit logs into the coordinator's, interleaved by timestamp. A
+     * k-way merge: each file keeps its own commit order, so a claim's events stay in the order
+     * they were logged. The merged log replaces the coordinator's atomically and the part files
+     * are removed.
+     */
+    static void mergeAuditLogs(Path auditLogPath, int partitions) throws IOException {
+        List<Path> inputs = new ArrayList<>();
+        inputs.add(auditLogPath);
+        for (int i = 0; i < partitions; i++) {
+            Path part = PartitionWorker.partPath(auditLogPath, i, partitions);
+            if (Files.exists(part)) inputs.add(part);
+        }
+        Path tmp = auditLogPath.resolveSibling(auditLogPath.getFileName() + ".tmp");
+        List<BufferedReader> readers = new ArrayList<>();
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            PriorityQueue<Head> heads = new PriorityQueue<>();
+            for (int i = 0; i < inputs.size(); i++) {
+                BufferedReader reader = Files.newBufferedReader(inputs.get(i), StandardCharsets.UTF_8);
+                readers.add(reader);
+                Head head = new Head(reader, i);
+                if (head.advance()) heads.add(head);
+            }
+            Head head;
+            while ((head = heads.poll()) != null) {
+                out.write(head.line);
+                out.newLine();
+                if (head.advance()) heads.add(head);
+            }
+        } finally {
+            for (BufferedReader reader : readers) reader.close();
+        }
+        Files.move(tmp, auditLogPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (int i = 1; i < inputs.size(); i++) Files.delete(inputs.get(i));
+    }
+
+    // Next line of one audit log; LocalDateTime text up to the first comma sorts chronologically
+    private static final class Head implements Comparable<Head> {
+        final BufferedReader reader;
+        final int file;
+        String line;
+        String timestamp;
+
+        Head(BufferedReader reader, int file) {
+            this.reader = reader;
+            this.file = file;
+        }
+
+        boolean advance() throws IOException {
+            line = reader.readLine();
+            if (line == null) return false;
+            int comma = line.indexOf(',');
+            timestamp = comma < 0 ? line : line.substring(0, comma);
+            return true;
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            int c = timestamp.compareTo(other.timestamp);
+            return c != 0 ? c : Integer.compare(file, other.file);
+        }
+    }
+
+    // Connection to one worker. Forwarders of different shards may send to the same partition
+    // (stolen policies), so sends are serialized by the lock.
+    private static final class Link {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+        final ReentrantLock lock = new ReentrantLock();
+        // Guarded by lock
+        private boolean pending = false;
+        private boolean failed = false;
+        // Claims sent after the link failed; read once the forwarders are done
+        long dropped = 0;
+
+        Link(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), STREAM_BUFFER_BYTES));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), STREAM_BUFFER_BYTES));
+        }
+
+        // Blocks while the worker's socket buffer is full, i.e. while its backlog is
+        void send(Claim claim) {
+            lock.lock();
+            try {
+                if (failed) {
+                    dropped++;
+                    return;
+                }
+                writeClaim(out, claim);
+                pending = true;
+            } catch (IOException e) {
+                fail(e);
+                dropped++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Skips a link a forwarder is writing to, so one stalled worker does not hold up the rest;
+        // the next round covers it
+        void flushIfIdle() {
+            if (!lock.tryLock()) return;
+            try {
+                if (!pending || failed) return;
+                out.flush();
+                pending = false;
+            } catch (IOException e) {
+                fail(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void end() {
+            lock.lock();
+            try {
+                if (failed) return;
+                out.writeByte(END);
+                out.flush();
+            } catch (IOException e) {
+                fail(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void fail(IOException e) {
+            failed = true;
+            System.err.println("Partition link error: " + e);
+        }
+    }
+}
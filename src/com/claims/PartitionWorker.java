@@ -0,0 +1,138 @@
+package com.claims;
+
+import com.claims.model.Claim;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One partition process, started by {@link PartitionCoordinator}: connects back to it, admits the
+ * claims it streams into a backlog of its own and processes them like a single-process run,
+ * writing its audit log, idempotency store, journal and metrics next to the configured ones with
+ * a ".part-N-of-M" suffix. On END it drains, replies with its summary aggregates and exits.
+ * Usage: PartitionWorker <config file or ""> <partition> <partitions> <coordinator port>
+ */
+public class PartitionWorker {
+    // Settings naming a file or directory; each partition gets its own
+    private static final String[] PATH_KEYS = {"auditLogPath", "idempotencyStorePath", "journalPath", "metricsPath"};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int partition = Integer.parseInt(args[1]);
+        int partitions = Integer.parseInt(args[2]);
+        int port = Integer.parseInt(args[3]);
+        Properties props = Config.loadProperties(args);
+        for (String key : PATH_KEYS) {
+            String value = props.getProperty(key, key.equals("auditLogPath") ? "audit.log" : "").trim();
+            if (!value.isEmpty()) props.setProperty(key, partPath(Path.of(value), partition, partitions).toString());
+        }
+        Config config = Config.fromProperties(props);
+
+        ExternalCheck.setSimulatedLatencyMs(config.getExternalCheckLatencyMs());
+        ExternalCheck.setBatching(config.getExternalCheckBatchSize(), config.getExternalCheckLingerMs());
+        AuditLogger auditLogger = new AuditLogger(config.getAuditLogPath(), config.getAuditFormat(),
+                config.getAuditDurability(), config.getAuditFsyncIntervalMs(), config.getAuditQueueCapacity(),
+                new AuditHistory(config.getAuditHistoryMaxClaims(), config.getAuditHistoryWindowSeconds()));
+        // Never written here; its aggregates go back to the coordinator
+        SummaryReport summaryReport = new SummaryReport(config.getSummaryReportPath());
+
+        BacklogJournal journal = null;
+        List<Claim> recovered = List.of();
+        if (config.getJournalPath() != null) {
+            journal = new BacklogJournal(config.getJournalPath(), config.getJournalSegmentBytes(), config.isJournalFsync());
+            recovered = journal.recover();
+            if (!recovered.isEmpty()) {
+                System.out.printf("Partition %d recovered %d claims from the journal%n", partition, recovered.size());
+            }
+        }
+        ClaimBacklog backlog = new ClaimBacklog(config.getBacklogCapacity(), auditLogger, journal,
+                config.getBacklogShards(), SchedulingPolicy.of(config));
+        backlog.restore(recovered);
+        ClaimIdempotencyTracker idempotencyTracker = new ClaimIdempotencyTracker(config.getIdempotencyStorePath(),
+                config.getIdempotencyInitialCapacity(), config.getIdempotencyBloomBitsPerId());
+        // Compaction drops the journal's record of finished claims, so the store keeps them first
+        if (journal != null) journal.setBeforeCompaction(idempotencyTracker::force);
+        // Intake is paced by the coordinator, so admission control has nothing to throttle here
+        PolicySerialScheduler scheduler = new PolicySerialScheduler(
+                backlog,
+                idempotencyTracker,
+                auditLogger,
+                summaryReport,
+                config,
+                null
+        );
+        summaryReport.attach(null, scheduler.getRetryScheduler(), null);
+
+        if (config.isMetricsJmx()) MetricsReporter.registerMBean();
+        MetricsReporter metricsReporter = new MetricsReporter(config.getMetricsPath(), config.getMetricsIntervalMs());
+        Thread metricsThread = new Thread(metricsReporter, "MetricsReporter");
+        metricsThread.setDaemon(true);
+        metricsThread.start();
+
+        // A signal reaches the coordinator too, which stops ingestion and ends the stream; the
+        // claims already here are drained rather than dropped
+        CountDownLatch finished = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                finished.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {}
+        }));
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(partition);
+            out.flush();
+
+            scheduler.startWorkers();
+            receive(in, backlog, config.getIngestionBatchSize());
+            backlog.closeIntake();
+            scheduler.awaitFinish();
+            scheduler.shutdown();
+
+            summaryReport.writeState(out);
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Partition " + partition + " lost the coordinator: " + e);
+            backlog.closeIntake();
+            scheduler.awaitFinish();
+            scheduler.shutdown();
+        }
+
+        auditLogger.close();
+        idempotencyTracker.close();
+        if (journal != null) journal.close();
+        metricsReporter.stop();
+        metricsReporter.writeSnapshot();
+        finished.countDown();
+    }
+
+    // Admits claims as they arrive, a batch at a time or whatever has arrived, until END
+    private static void receive(DataInputStream in, ClaimBacklog backlog, int batchSize)
+            throws IOException, InterruptedException {
+        List<Claim> batch = new ArrayList<>(batchSize);
+        while (true) {
+            byte type = in.readByte();
+            if (type == PartitionCoordinator.END) break;
+            if (type != PartitionCoordinator.CLAIM) throw new IOException("Bad record type " + type);
+            batch.add(PartitionCoordinator.readClaim(in));
+            if (batch.size() >= batchSize || in.available() == 0) {
+                backlog.putAll(batch);
+                batch.clear();
+            }
+        }
+        backlog.putAll(batch);
+    }
+
+    // The count is part of the name, so a run with another count never opens these files
+    public static Path partPath(Path path, int partition, int partitions) {
+        return path.resolveSibling(path.getFileName() + ".part-" + partition + "-of-" + partitions);
+    }
+}
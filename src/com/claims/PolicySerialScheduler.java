@@ -4,8 +4,6 @@ import com.claims.model.Claim;
 
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantLock;
 
 
 public class PolicySerialScheduler {
@@ -14,35 +12,51 @@ public class PolicySerialScheduler {
     private final AuditLogger auditLogger;
     private final SummaryReport summaryReport;
     private final Config config;
+    private final AdmissionController admission;
 
-    // Track locks for each policy
-    private final ConcurrentHashMap<String, ReentrantLock> policyLocks = new ConcurrentHashMap<>();
-    // Set of currently active policies
-    private final Set<String> lockedPolicies = ConcurrentHashMap.newKeySet();
+    private final RetryScheduler retryScheduler;
+    final Thread retryThread;
 
     private final ExecutorService pool;
-    private final AtomicBoolean shutdown = new AtomicBoolean(false);
     private final CountDownLatch finishLatch;
 
     public PolicySerialScheduler(ClaimBacklog backlog, ClaimIdempotencyTracker idempotencyTracker,
                                  AuditLogger auditLogger, SummaryReport summaryReport, Config config) {
+        this(backlog, idempotencyTracker, auditLogger, summaryReport, config, null);
+    }
+
+    // admission, if not null, is fed the latency and outcome of every external check
+    public PolicySerialScheduler(ClaimBacklog backlog, ClaimIdempotencyTracker idempotencyTracker,
+                                 AuditLogger auditLogger, SummaryReport summaryReport, Config config,
+                                 AdmissionController admission) {
         this.backlog = backlog;
         this.idempotencyTracker = idempotencyTracker;
         this.auditLogger = auditLogger;
         this.summaryReport = summaryReport;
         this.config = config;
-        this.pool = Executors.newFixedThreadPool(config.getWorkerCount());
-        this.finishLatch = new CountDownLatch(config.getWorkerCount());
+        this.admission = admission;
+        this.retryScheduler = new RetryScheduler(backlog, config.getRetryBaseDelayMs(), config.getRetryMaxDelayMs());
+        this.retryThread = new Thread(retryScheduler, "RetryScheduler");
+        this.retryThread.setDaemon(true);
+        int threads = config.getWorkerMode() == Config.WorkerMode.VIRTUAL ? 1 : config.getWorkerCount();
+        this.pool = Executors.newFixedThreadPool(threads);
+        this.finishLatch = new CountDownLatch(threads);
     }
 
     public void startWorkers() {
+        retryThread.start();
+        if (config.getWorkerMode() == Config.WorkerMode.VIRTUAL) {
+            pool.submit(new Dispatcher());
+            return;
+        }
+        boolean sharded = config.getWorkerMode() == Config.WorkerMode.SHARDED;
         for (int i = 0; i < config.getWorkerCount(); i++) {
-            pool.submit(new Worker("Worker-" + (i + 1)));
+            pool.submit(new Worker("Worker-" + (i + 1), sharded ? i : -1));
         }
     }
 
     public void shutdown() {
-        shutdown.set(true);
+        backlog.closeIntake();
         pool.shutdown();
     }
 
@@ -50,77 +64,122 @@ public class PolicySerialScheduler {
         finishLatch.await();
     }
 
+    public RetryScheduler getRetryScheduler() { return retryScheduler; }
+
+    // The last worker out stops the retry thread. A closed backlog only drains once every pending
+    // retry is back, so nothing is lost, and the thread ends with the run whether or not
+    // shutdown() is called.
+    private void workerFinished() {
+        finishLatch.countDown();
+        if (finishLatch.getCount() == 0) retryThread.interrupt();
+    }
+
     class Worker implements Runnable {
         private final String name;
+        // Backlog shard this worker consumes alone, or -1 to share an unsharded backlog
+        private final int shard;
 
-        Worker(String name) { this.name = name; }
+        Worker(String name, int shard) {
+            this.name = name;
+            this.shard = shard;
+        }
 
         @Override
         public void run() {
             try {
-                while (!shutdown.get() || backlog.size() > 0) {
-                    Claim claim = backlog.pollNext(lockedPolicies);
-                    if (claim == null) {
-                        Thread.sleep(25); // idle
-                        continue;
-                    }
-                    // Per-policy locking
-                    ReentrantLock lock = policyLocks.computeIfAbsent(claim.policyNumber, k -> new ReentrantLock());
-                    // To avoid deadlock, always lock on sorted policy key if ever claiming multiple locks
-                    lock.lock();
+                // Blocks until a claim for an idle policy is ready; null once the closed backlog drains.
+                // The backlog keeps the claim's policy busy until complete(), which is what
+                // serializes each policy, so no per-policy lock is needed here
+                Claim claim;
+                while ((claim = shard < 0 ? backlog.take() : backlog.take(shard)) != null) {
+                    boolean retrying = false;
+                    long start = System.nanoTime();
                     try {
-                        lockedPolicies.add(claim.policyNumber);
-                        processClaim(claim);
+                        retrying = processClaim(claim, name);
                     } finally {
-                        lockedPolicies.remove(claim.policyNumber);
-                        lock.unlock();
+                        Metrics.WORKER_BUSY_NANOS.add(System.nanoTime() - start);
+                        // A claim waiting to retry keeps its policy busy until the retry stage hands it back
+                        if (!retrying) backlog.complete(claim);
                     }
                 }
             } catch (InterruptedException ignored) {
             } finally {
-                finishLatch.countDown();
+                workerFinished();
             }
         }
+    }
 
-        private void processClaim(Claim claim) {
-            // Idempotency: skip if already processed
-            if (!idempotencyTracker.markProcessing(claim.claimId)) {
-                auditLogger.logEvent(claim, name, claim.status.name(), "DUPLICATE", claim.attempt);
-                return;
-            }
-            claim.attempt++;
-            claim.status = Claim.Status.IN_PROGRESS;
-            auditLogger.logEvent(claim, name, "NEW", "IN_PROGRESS", claim.attempt);
-
-            // Simulate external check with timeout/retries
-            boolean processed = false;
-            for (int attempt = claim.attempt; attempt <= config.getRetryLimit(); attempt++) {
-                ExternalCheck.Result result = ExternalCheck.check(claim, config.getExternalCheckTimeoutMs());
-                if (result == ExternalCheck.Result.SUCCESS) {
-                    claim.status = Claim.Status.APPROVED;
-                    processed = true;
-                    auditLogger.logEvent(claim, name, "IN_PROGRESS", "APPROVED", attempt);
-                    break;
-                } else if (result == ExternalCheck.Result.TRANSIENT_ERROR ||
-                        result == ExternalCheck.Result.TIMEOUT) {
-                    claim.status = Claim.Status.RETRYING;
-                    auditLogger.logEvent(claim, name, "IN_PROGRESS", "RETRYING", attempt);
-                    // Requeue for retry, preserving per-policy FIFO
-                    backlog.requeue(claim);
-                    return;
-                } else if (result == ExternalCheck.Result.PERMANENT_ERROR) {
-                    claim.status = Claim.Status.REJECTED;
-                    processed = true;
-                    auditLogger.logEvent(claim, name, "IN_PROGRESS", "REJECTED", attempt);
-                    break;
+    // Virtual mode: hands each ready claim to its own virtual thread, so a claim blocked on
+    // ExternalCheck costs no platform thread. take() still keeps the policy busy until the
+    // claim completes, so per-policy serialization is the same as with fixed workers.
+    class Dispatcher implements Runnable {
+        @Override
+        public void run() {
+            Semaphore inFlight = new Semaphore(config.getMaxInFlightClaims());
+            ThreadFactory factory = Thread.ofVirtual().name("VWorker-", 1).factory();
+            try (ExecutorService claims = Executors.newThreadPerTaskExecutor(factory)) {
+                while (true) {
+                    // Take a permit first so a waiting claim never holds its policy busy
+                    inFlight.acquire();
+                    Claim claim = backlog.take();
+                    if (claim == null) {
+                        inFlight.release();
+                        break;
+                    }
+                    claims.submit(() -> {
+                        boolean retrying = false;
+                        long start = System.nanoTime();
+                        try {
+                            retrying = processClaim(claim, Thread.currentThread().getName());
+                        } finally {
+                            Metrics.WORKER_BUSY_NANOS.add(System.nanoTime() - start);
+                            if (!retrying) backlog.complete(claim);
+                            inFlight.release();
+                        }
+                    });
                 }
+            } catch (InterruptedException ignored) {
+            } finally {
+                workerFinished();
             }
-            if (!processed) {
-                claim.status = Claim.Status.REJECTED;
-                auditLogger.logEvent(claim, name, "IN_PROGRESS", "REJECTED", claim.attempt);
-            }
-            backlog.remove(claim);
-            summaryReport.record(claim);
         }
     }
+
+    // Returns true if the claim was handed to the retry stage rather than finished
+    private boolean processClaim(Claim claim, String name) {
+        // Idempotency: skip if already processed. Only a claim's first attempt is checked,
+        // since a retry comes back with the ID this claim already marked.
+        if (claim.status == Claim.Status.NEW && !idempotencyTracker.markProcessing(claim.claimId())) {
+            auditLogger.logEvent(claim, name, claim.status.name(), "DUPLICATE", claim.attempt);
+            return false;
+        }
+        String prevStatus = claim.status.name();
+        claim.attempt++;
+        claim.status = Claim.Status.IN_PROGRESS;
+        auditLogger.logEvent(claim, name, prevStatus, "IN_PROGRESS", claim.attempt);
+
+        // Simulate external check with timeout; transient failures are retried after a backoff
+        long checkStart = System.nanoTime();
+        ExternalCheck.Result result = ExternalCheck.check(claim, config.getExternalCheckTimeoutMs());
+        long checkNanos = System.nanoTime() - checkStart;
+        Metrics.checkLatency(result).recordNanos(checkNanos);
+        if (admission != null) admission.recordCheck(checkNanos, result);
+        if (result == ExternalCheck.Result.SUCCESS) {
+            claim.status = Claim.Status.APPROVED;
+            auditLogger.logEvent(claim, name, "IN_PROGRESS", "APPROVED", claim.attempt);
+        } else if ((result == ExternalCheck.Result.TRANSIENT_ERROR || result == ExternalCheck.Result.TIMEOUT)
+                && claim.attempt < config.getRetryLimit()) {
+            claim.status = Claim.Status.RETRYING;
+            auditLogger.logEvent(claim, name, "IN_PROGRESS", "RETRYING", claim.attempt);
+            retryScheduler.schedule(claim);
+            return true;
+        } else {
+            // Permanent error, or transient errors until the retry limit
+            claim.status = Claim.Status.REJECTED;
+            auditLogger.logEvent(claim, name, "IN_PROGRESS", "REJECTED", claim.attempt);
+        }
+        summaryReport.record(claim);
+        idempotencyTracker.complete(claim.claimId());
+        return false;
+    }
 }
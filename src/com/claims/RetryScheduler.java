@@ -0,0 +1,93 @@
+package com.claims;
+
+import com.claims.model.Claim;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Holds claims that failed transiently until their backoff expires, without holding a worker.
+// The claim's policy stays busy while it waits, so later claims of the policy cannot overtake it.
+public class RetryScheduler implements Runnable {
+    private final ClaimBacklog backlog;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final DelayQueue<PendingRetry> pending = new DelayQueue<>();
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder totalWaitMs = new LongAdder();
+    private final AtomicLong maxWaitMs = new AtomicLong();
+
+    public RetryScheduler(ClaimBacklog backlog, long baseDelayMs, long maxDelayMs) {
+        this.backlog = backlog;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    /**
+     * Schedules a claim taken from the backlog for another attempt. The caller must
+     * not complete the claim; it is handed back through {@link ClaimBacklog#retry(Claim)}.
+     */
+    public void schedule(Claim claim) {
+        scheduled.increment();
+        Metrics.RETRIES.increment();
+        pending.put(new PendingRetry(claim, System.nanoTime(), backoffMs(claim.attempt)));
+    }
+
+    // Exponential backoff capped at maxDelayMs, with "equal jitter": half fixed, half random
+    long backoffMs(int attempt) {
+        int shift = Math.min(Math.max(attempt - 1, 0), 30);
+        long delay = Math.min(maxDelayMs, baseDelayMs << shift);
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                PendingRetry retry = pending.take();
+                long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - retry.scheduledAt);
+                totalWaitMs.add(waitedMs);
+                maxWaitMs.accumulateAndGet(waitedMs, Math::max);
+                released.increment();
+                backlog.retry(retry.claim);
+            }
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    public int pendingCount() { return pending.size(); }
+    public long getScheduledCount() { return scheduled.sum(); }
+    public long getReleasedCount() { return released.sum(); }
+    public long getTotalWaitMs() { return totalWaitMs.sum(); }
+    public long getMaxWaitMs() { return maxWaitMs.get(); }
+
+    public double getAverageWaitMs() {
+        long n = released.sum();
+        return n == 0 ? 0 : ((double) totalWaitMs.sum()) / n;
+    }
+
+    private static class PendingRetry implements Delayed {
+        final Claim claim;
+        final long scheduledAt;
+        final long dueAt;
+
+        PendingRetry(Claim claim, long scheduledAt, long delayMs) {
+            this.claim = claim;
+            this.scheduledAt = scheduledAt;
+            this.dueAt = scheduledAt + TimeUnit.MILLISECONDS.toNanos(delayMs);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAt, ((PendingRetry) other).dueAt);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.claims;
+
+import com.claims.model.Claim;
+
+/**
+ * Decides the order in which a backlog shard serves its ready policies. Each shard keeps one
+ * ReadySet, used only under the shard's lock. A policy with queued claims of both priorities
+ * has a slot in the set for each, so a policy's URGENT claims can be served before its older
+ * NORMAL ones; claims of one priority of a policy are always served in order.
+ */
+public interface SchedulingPolicy {
+    ReadySet newReadySet();
+
+    interface ReadySet {
+        // slot.head() is not null when a slot is added
+        void add(ClaimBacklog.ReadySlot slot);
+
+        // The slot to serve next, or null if the set is empty. Slots may be stale; the shard
+        // skips those and polls again.
+        ClaimBacklog.ReadySlot poll(long nowNanos);
+
+        // The slot this set would serve last, handed to a shard that steals it
+        ClaimBacklog.ReadySlot pollLast();
+    }
+
+    static SchedulingPolicy of(Config config) {
+        switch (config.getSchedulingPolicy()) {
+            case WFQ:
+                return new WeightedFairScheduling(config.getSchedulingPriorityWeights(), config.getSchedulingTypeWeights());
+            case AGING:
+                return new AgingScheduling(config.getSchedulingAgingMs());
+            case EDF:
+                return new DeadlineScheduling(config.getSchedulingSlaMs());
+            default:
+                return new StrictPriorityScheduling();
+        }
+    }
+
+    // Index of a scheduling class: priority by claim type
+    static int classOf(Claim.Priority priority, Claim.Type type) {
+        return priority.ordinal() * Claim.Type.values().length + type.ordinal();
+    }
+
+    int CLASSES = Claim.Priority.values().length * Claim.Type.values().length;
+}
@@ -0,0 +1,70 @@
+package com.claims;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// The policies with the longest single wait seen, up to a fixed number of them, so wait per policy
+// is tracked in bounded memory however many policies there are. Once the table is full, a wait no
+// longer than the shortest one kept returns after one volatile read.
+public class SlowestPolicies {
+    private final String name;
+    private final String[] policies;
+    private final long[] maxMicros;
+    private int count = 0;
+    // Shortest max in the table once it is full, -1 until then
+    private volatile long floorMicros = -1;
+
+    public SlowestPolicies(String name, int size) {
+        this.name = name;
+        this.policies = new String[size];
+        this.maxMicros = new long[size];
+    }
+
+    public String name() { return name; }
+
+    public void recordNanos(String policy, long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        if (micros <= floorMicros) return;
+        synchronized (this) {
+            int slot = indexOf(policy);
+            if (slot >= 0) {
+                if (micros <= maxMicros[slot]) return;
+            } else if (count < policies.length) {
+                slot = count++;
+            } else {
+                slot = shortest();
+                if (micros <= maxMicros[slot]) return;
+            }
+            policies[slot] = policy;
+            maxMicros[slot] = micros;
+            if (count == policies.length) floorMicros = maxMicros[shortest()];
+        }
+    }
+
+    // Policy -> longest wait in micros, longest first
+    public synchronized Map<String, Long> snapshot() {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> maxMicros[i]).reversed());
+        Map<String, Long> slowest = new LinkedHashMap<>();
+        for (int i : order) slowest.put(policies[i], maxMicros[i]);
+        return slowest;
+    }
+
+    private int indexOf(String policy) {
+        for (int i = 0; i < count; i++) {
+            if (policies[i].equals(policy)) return i;
+        }
+        return -1;
+    }
+
+    private int shortest() {
+        int slot = 0;
+        for (int i = 1; i < count; i++) {
+            if (maxMicros[i] < maxMicros[slot]) slot = i;
+        }
+        return slot;
+    }
+}
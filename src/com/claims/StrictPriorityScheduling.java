@@ -0,0 +1,35 @@
+package com.claims;
+
+import com.claims.model.Claim;
+
+import java.util.ArrayDeque;
+
+// Every ready URGENT slot before any NORMAL one, each priority in the order its slots became
+// ready. Lowest URGENT latency, but a sustained URGENT burst starves NORMAL claims.
+public class StrictPriorityScheduling implements SchedulingPolicy {
+    @Override
+    public ReadySet newReadySet() {
+        return new ReadySet() {
+            private final ArrayDeque<ClaimBacklog.ReadySlot> urgent = new ArrayDeque<>();
+            private final ArrayDeque<ClaimBacklog.ReadySlot> normal = new ArrayDeque<>();
+
+            @Override
+            public void add(ClaimBacklog.ReadySlot slot) {
+                (slot.priority == Claim.Priority.URGENT ? urgent : normal).addLast(slot);
+            }
+
+            @Override
+            public ClaimBacklog.ReadySlot poll(long nowNanos) {
+                ClaimBacklog.ReadySlot slot = urgent.pollFirst();
+                return slot != null ? slot : normal.pollFirst();
+            }
+
+            // Newest URGENT first, as the victim's consumer keeps the oldest
+            @Override
+            public ClaimBacklog.ReadySlot pollLast() {
+                ClaimBacklog.ReadySlot slot = urgent.pollLast();
+                return slot != null ? slot : normal.pollLast();
+            }
+        };
+    }
+}
@@ -3,59 +3,348 @@ package com.claims;
 import com.claims.model.Claim;
 
 import java.io.*;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.*;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+// Streaming summary: record() folds each finished claim into fixed-size aggregates (a HyperLogLog
+// for unique IDs, counters and latency histograms overall, per claim type and per priority), so
+// memory does not grow with the number of claims. With an interval set, run() rewrites the
+// summary file atomically every interval; write() produces the final one. writeState() and
+// mergeState() carry the aggregates of a partition worker process over to the coordinator.
+public class SummaryReport implements Runnable {
+    private static final int MAX_OTHER_TYPES = 32;
 
-public class SummaryReport {
     private final Path summaryPath;
-    private final Set<String> uniqueClaims = ConcurrentHashMap.newKeySet();
-    private final AtomicInteger approved = new AtomicInteger(0);
-    private final AtomicInteger escalated = new AtomicInteger(0);
-    private final AtomicInteger rejected = new AtomicInteger(0);
-    private final AtomicLong totalPaid = new AtomicLong(0);
-    private final AtomicInteger totalAttempts = new AtomicInteger(0);
+    private final long intervalMs;
+    private volatile boolean stopped = false;
+
+    private final HyperLogLog uniqueClaims = new HyperLogLog();
+    private final Breakdown total = new Breakdown();
+    private final Breakdown[] byType = breakdowns(Claim.Type.values().length);
+    // Unknown claim types by label, up to MAX_OTHER_TYPES of them; claims of any further label
+    // count under OTHER
+    private final Map<String, Breakdown> byOtherType = new ConcurrentHashMap<>();
+    private final Breakdown[] byPriority = breakdowns(Claim.Priority.values().length);
+
+    // Sources of the run-wide lines; any may be null
+    private volatile SuspiciousMonitor monitor;
+    private volatile RetryScheduler retries;
+    private volatile AdmissionController admission;
+
+    // Retry totals merged in from other processes
+    private final LongAdder mergedRetriesScheduled = new LongAdder();
+    private final LongAdder mergedRetriesReleased = new LongAdder();
+    private final LongAdder mergedRetryWaitMs = new LongAdder();
+    private final AtomicLong mergedMaxRetryWaitMs = new AtomicLong();
+    private volatile boolean merged = false;
+    // Backlog wait per scheduling class merged in from other processes; this process's is in Metrics
+    private final LatencyHistogram[] mergedClassWait = new LatencyHistogram[SchedulingPolicy.CLASSES];
 
     public SummaryReport(Path summaryPath) {
+        this(summaryPath, 0);
+    }
+
+    // intervalMs <= 0: only the final write()
+    public SummaryReport(Path summaryPath, long intervalMs) {
         this.summaryPath = summaryPath;
+        this.intervalMs = intervalMs;
+        for (int c = 0; c < mergedClassWait.length; c++) mergedClassWait[c] = new LatencyHistogram();
     }
 
+    // admission may be null when admission control is off
+    public void attach(SuspiciousMonitor monitor, RetryScheduler retries, AdmissionController admission) {
+        this.monitor = monitor;
+        this.retries = retries;
+        this.admission = admission;
+    }
+
+    public void stop() { stopped = true; }
+
     public void record(Claim claim) {
-        uniqueClaims.add(claim.claimId);
-        totalAttempts.addAndGet(claim.attempt);
-        switch (claim.status) {
-            case APPROVED:
-                approved.incrementAndGet();
-                totalPaid.addAndGet(claim.claimAmount);
+        uniqueClaims.add(ClaimIdempotencyTracker.mix(ClaimIdempotencyTracker.encode(claim.claimId())));
+        long latencyNanos = claim.queuedAtNanos == 0 ? -1 : System.nanoTime() - claim.queuedAtNanos;
+        total.record(claim, latencyNanos);
+        typeBreakdown(claim.claimType, claim.otherType()).record(claim, latencyNanos);
+        byPriority[claim.priorityFlag.ordinal()].record(claim, latencyNanos);
+    }
+
+    // Writes the aggregates for mergeState; the run-wide lines other than retries are not carried
+    public synchronized void writeState(DataOutputStream out) throws IOException {
+        uniqueClaims.writeTo(out);
+        total.writeTo(out);
+        for (Breakdown b : byType) b.writeTo(out);
+        Map<String, Breakdown> others = new TreeMap<>(byOtherType);
+        out.writeInt(others.size());
+        for (Map.Entry<String, Breakdown> e : others.entrySet()) {
+            out.writeUTF(e.getKey());
+            e.getValue().writeTo(out);
+        }
+        for (Breakdown b : byPriority) b.writeTo(out);
+        for (long v : retryTotals()) out.writeLong(v);
+        for (Claim.Priority priority : Claim.Priority.values()) {
+            for (Claim.Type type : Claim.Type.values()) writeCounts(out, classWait(priority, type));
+        }
+    }
+
+    public synchronized void mergeState(DataInputStream in) throws IOException {
+        uniqueClaims.mergeFrom(in);
+        total.mergeFrom(in);
+        for (Breakdown b : byType) b.mergeFrom(in);
+        for (int n = in.readInt(); n > 0; n--) {
+            String label = in.readUTF();
+            typeBreakdown(Claim.Type.OTHER, label).mergeFrom(in);
+        }
+        for (Breakdown b : byPriority) b.mergeFrom(in);
+        mergedRetriesScheduled.add(in.readLong());
+        mergedRetriesReleased.add(in.readLong());
+        mergedRetryWaitMs.add(in.readLong());
+        mergedMaxRetryWaitMs.accumulateAndGet(in.readLong(), Math::max);
+        for (Claim.Priority priority : Claim.Priority.values()) {
+            for (Claim.Type type : Claim.Type.values()) {
+                mergedClassWait[SchedulingPolicy.classOf(priority, type)].add(readCounts(in));
+            }
+        }
+        merged = true;
+    }
+
+    private long[] classWait(Claim.Priority priority, Claim.Type type) {
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        long[] remote = new long[LatencyHistogram.BUCKETS];
+        Metrics.backlogWait(priority, type).copyTo(counts, false);
+        mergedClassWait[SchedulingPolicy.classOf(priority, type)].copyTo(remote, false);
+        for (int i = 0; i < counts.length; i++) counts[i] += remote[i];
+        return counts;
+    }
+
+    // Non-zero buckets only
+    private static void writeCounts(DataOutputStream out, long[] counts) throws IOException {
+        int nonZero = 0;
+        for (long c : counts) if (c != 0) nonZero++;
+        out.writeShort(nonZero);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) continue;
+            out.writeShort(i);
+            out.writeLong(counts[i]);
+        }
+    }
+
+    private static long[] readCounts(DataInputStream in) throws IOException {
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        int nonZero = in.readUnsignedShort();
+        for (int i = 0; i < nonZero; i++) {
+            int index = in.readUnsignedShort();
+            if (index >= counts.length) throw new IOException("Bad histogram bucket " + index);
+            counts[index] = in.readLong();
+        }
+        return counts;
+    }
+
+    // Scheduled, released, total wait ms and max wait ms, local and merged
+    private long[] retryTotals() {
+        long[] totals = {mergedRetriesScheduled.sum(), mergedRetriesReleased.sum(), mergedRetryWaitMs.sum(),
+                mergedMaxRetryWaitMs.get()};
+        RetryScheduler retries = this.retries;
+        if (retries != null) {
+            totals[0] += retries.getScheduledCount();
+            totals[1] += retries.getReleasedCount();
+            totals[2] += retries.getTotalWaitMs();
+            totals[3] = Math.max(totals[3], retries.getMaxWaitMs());
+        }
+        return totals;
+    }
+
+    @Override
+    public void run() {
+        if (intervalMs <= 0) return;
+        while (!stopped) {
+            try {
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException e) {
                 break;
-            case ESCALATED: escalated.incrementAndGet(); break;
-            case REJECTED: rejected.incrementAndGet(); break;
+            }
+            write();
         }
     }
 
-    public void write(Map<String, List<String>> history, List<Claim> suspiciousClaims) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(summaryPath.toFile()))) {
-            bw.write("Total unique claims processed: " + uniqueClaims.size());
+    // Snapshot of the aggregates so far; called by the snapshot thread and once more at the end
+    public synchronized void write() {
+        StringWriter out = new StringWriter(2048);
+        try (BufferedWriter bw = new BufferedWriter(out)) {
+            writeTo(bw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Path tmp = summaryPath.resolveSibling(summaryPath.getFileName() + ".tmp");
+        try {
+            Files.writeString(tmp, out.toString());
+            Files.move(tmp, summaryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Summary write error: " + e);
+        }
+    }
+
+    private void writeTo(BufferedWriter bw) throws IOException {
+        SuspiciousMonitor monitor = this.monitor;
+        AdmissionController admission = this.admission;
+
+        bw.write("Total unique claims processed: " + uniqueClaims.estimate());
+        bw.newLine();
+        bw.write("Approved: " + total.approved.sum());
+        bw.newLine();
+        bw.write("Escalated: " + total.escalated.sum());
+        bw.newLine();
+        bw.write("Rejected: " + total.rejected.sum());
+        bw.newLine();
+        if (monitor != null) {
+            bw.write("Suspicious claims detected: " + monitor.getSuspiciousCount());
             bw.newLine();
-            bw.write("Approved: " + approved.get());
+            bw.write("Intake throttled: " + monitor.getThrottleCount() + " times");
             bw.newLine();
-            bw.write("Escalated: " + escalated.get());
+        }
+        bw.write("Total amount paid: " + total.paid.sum());
+        bw.newLine();
+        bw.write(String.format("Average processing attempts per claim: %.2f", total.averageAttempts()));
+        bw.newLine();
+        if (retries != null || merged) {
+            long[] totals = retryTotals();
+            bw.write("Retries scheduled: " + totals[0]);
             bw.newLine();
-            bw.write("Rejected: " + rejected.get());
+            bw.write(String.format("Average retry wait ms: %.1f (max %d)",
+                    totals[1] == 0 ? 0 : (double) totals[2] / totals[1], totals[3]));
             bw.newLine();
-            bw.write("Suspicious claims detected: " + suspiciousClaims.size());
+        }
+        if (admission != null) {
+            bw.write(String.format("Admission rate claims/s: %.0f (lowest %.0f, %d cuts)", admission.getRate(),
+                    admission.getLowestRate(), admission.getDecreaseCount()));
             bw.newLine();
-            bw.write("Total amount paid: " + totalPaid.get());
+        }
+        bw.newLine();
+        bw.write("Latency is from the last time a claim was queued to its final status, in ms.");
+        bw.newLine();
+        bw.write(Breakdown.HEADER);
+        bw.newLine();
+        bw.write(total.line("All"));
+        bw.newLine();
+        for (Claim.Type type : Claim.Type.values()) {
+            Breakdown b = byType[type.ordinal()];
+            if (b.count() == 0) continue;
+            bw.write(b.line(type.label));
             bw.newLine();
-            double avgAttempts = uniqueClaims.isEmpty() ? 0 : ((double) totalAttempts.get()) / uniqueClaims.size();
-            bw.write(String.format("Average processing attempts per claim: %.2f", avgAttempts));
+        }
+        for (Map.Entry<String, Breakdown> e : new TreeMap<>(byOtherType).entrySet()) {
+            bw.write(e.getValue().line(e.getKey()));
             bw.newLine();
-            // Optionally, add more stats if needed
-        } catch (IOException e) {
-            System.err.println("Summary write error: " + e);
+        }
+        for (Claim.Priority priority : Claim.Priority.values()) {
+            bw.write(byPriority[priority.ordinal()].line(priority.name()));
+            bw.newLine();
+        }
+        bw.newLine();
+        bw.write("Backlog wait is from entering a policy queue to being taken by a worker, per scheduling class, in ms.");
+        bw.newLine();
+        bw.write(String.format("%-18s %8s %7s %7s %7s %7s", "Class", "Taken", "p50", "p90", "p99", "max"));
+        bw.newLine();
+        for (Claim.Priority priority : Claim.Priority.values()) {
+            for (Claim.Type type : Claim.Type.values()) {
+                long[] counts = classWait(priority, type);
+                long taken = LatencyHistogram.count(counts);
+                if (taken == 0) continue;
+                bw.write(String.format("%-18s %8d %7d %7d %7d %7d", priority.name() + " " + type.label, taken,
+                        Breakdown.millis(counts, 0.5), Breakdown.millis(counts, 0.9), Breakdown.millis(counts, 0.99),
+                        Breakdown.millis(counts, 1.0)));
+                bw.newLine();
+            }
+        }
+        bw.write("# " + LocalDateTime.now());
+        bw.newLine();
+    }
+
+    // otherType is the unknown label of an OTHER claim, or null
+    private Breakdown typeBreakdown(Claim.Type type, String otherType) {
+        if (otherType == null) return byType[type.ordinal()];
+        Breakdown b = byOtherType.get(otherType);
+        if (b != null) return b;
+        if (byOtherType.size() >= MAX_OTHER_TYPES) return byType[Claim.Type.OTHER.ordinal()];
+        return byOtherType.computeIfAbsent(otherType, k -> new Breakdown());
+    }
+
+    private static Breakdown[] breakdowns(int n) {
+        Breakdown[] breakdowns = new Breakdown[n];
+        for (int i = 0; i < n; i++) breakdowns[i] = new Breakdown();
+        return breakdowns;
+    }
+
+    // Outcome counts, amount paid, attempts and latency of one group of claims
+    private static final class Breakdown {
+        static final String HEADER = String.format("%-10s %8s %8s %9s %8s %12s %8s %7s %7s %7s %7s",
+                "Group", "Claims", "Approved", "Escalated", "Rejected", "Paid", "Attempts", "p50", "p90", "p99", "max");
+
+        final LongAdder approved = new LongAdder();
+        final LongAdder escalated = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder paid = new LongAdder();
+        final LongAdder attempts = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        void record(Claim claim, long latencyNanos) {
+            attempts.add(claim.attempt);
+            switch (claim.status) {
+                case APPROVED:
+                    approved.increment();
+                    paid.add(claim.claimAmount);
+                    break;
+                case ESCALATED: escalated.increment(); break;
+                case REJECTED: rejected.increment(); break;
+            }
+            if (latencyNanos >= 0) latency.recordNanos(latencyNanos);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeLong(approved.sum());
+            out.writeLong(escalated.sum());
+            out.writeLong(rejected.sum());
+            out.writeLong(paid.sum());
+            out.writeLong(attempts.sum());
+            long[] counts = new long[LatencyHistogram.BUCKETS];
+            latency.copyTo(counts, false);
+            writeCounts(out, counts);
+        }
+
+        void mergeFrom(DataInputStream in) throws IOException {
+            approved.add(in.readLong());
+            escalated.add(in.readLong());
+            rejected.add(in.readLong());
+            paid.add(in.readLong());
+            attempts.add(in.readLong());
+            latency.add(readCounts(in));
+        }
+
+        long count() {
+            return approved.sum() + escalated.sum() + rejected.sum();
+        }
+
+        double averageAttempts() {
+            long n = count();
+            return n == 0 ? 0 : (double) attempts.sum() / n;
+        }
+
+        String line(String group) {
+            long[] counts = new long[LatencyHistogram.BUCKETS];
+            latency.copyTo(counts, false);
+            return String.format("%-10s %8d %8d %9d %8d %12d %8.2f %7d %7d %7d %7d", group, count(), approved.sum(),
+                    escalated.sum(), rejected.sum(), paid.sum(), averageAttempts(), millis(counts, 0.5),
+                    millis(counts, 0.9), millis(counts, 0.99), millis(counts, 1.0));
+        }
+
+        private static long millis(long[] counts, double q) {
+            return LatencyHistogram.percentileMicros(counts, q) / 1000;
         }
     }
 }
@@ -2,59 +2,129 @@ package com.claims;
 
 import com.claims.model.Claim;
 
-import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 
+// Counts suspicious claims in a sliding window of per-second buckets, updated with CAS and
+// without allocation. The claim that crosses the threshold pauses intake itself; the monitor
+// thread only sleeps out the throttle and resumes intake. Thread safe.
 public class SuspiciousMonitor implements Runnable {
+    private static final long THROTTLE_MS = 2000;
+    private static final int SAMPLE_SIZE = 100;
+    // Each bucket packs [epoch second][count], so a stale bucket is recognised and reset on write
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
     private final int threshold;
     private final int windowSec;
     private final AuditLogger auditLogger;
     private final ClaimBacklog backlog;
-    private final List<Claim> suspiciousClaims = Collections.synchronizedList(new ArrayList<>());
-    private final Queue<Instant> suspiciousTimes = new LinkedList<>();
+    private final AtomicLongArray buckets;
+    // Reservoir sample of all suspicious claims seen
+    private final AtomicReferenceArray<Claim> sample = new AtomicReferenceArray<>(SAMPLE_SIZE);
+    private final AtomicLong suspiciousCount = new AtomicLong();
+    private final AtomicLong throttleCount = new AtomicLong();
+    private final AtomicBoolean throttling = new AtomicBoolean(false);
     private final AtomicBoolean stopped = new AtomicBoolean(false);
+    private volatile Thread monitorThread;
 
     public SuspiciousMonitor(int threshold, int windowSec, AuditLogger auditLogger, ClaimBacklog backlog) {
         this.threshold = threshold;
-        this.windowSec = windowSec;
+        this.windowSec = Math.max(1, windowSec);
         this.auditLogger = auditLogger;
         this.backlog = backlog;
+        this.buckets = new AtomicLongArray(this.windowSec);
     }
 
-    public void stop() { stopped.set(true); }
+    public void stop() {
+        stopped.set(true);
+        Thread t = monitorThread;
+        if (t != null) LockSupport.unpark(t);
+    }
 
     public void recordSuspicious(Claim claim) {
-        suspiciousClaims.add(claim);
-        suspiciousTimes.add(Instant.now());
-        System.out.println("Suspicious claim detected: " + claim.claimId + " [" + claim.claimAmount + "]");
+        long n = suspiciousCount.incrementAndGet();
+        addToSample(claim, n);
+        System.out.println("Suspicious claim detected: " + claim.claimId() + " [" + claim.claimAmount + "]");
         auditLogger.logEvent(claim, "Monitor", claim.status.name(), "SUSPICIOUS", claim.attempt);
+        long now = System.currentTimeMillis() / 1000;
+        increment(now);
+        if (windowCount(now) >= threshold && throttling.compareAndSet(false, true)) {
+            backlog.pauseIntake();
+            Thread t = monitorThread;
+            if (t != null) LockSupport.unpark(t);
+        }
     }
 
+    // Up to SAMPLE_SIZE suspicious claims, chosen uniformly from all of them
     public List<Claim> getSuspiciousClaims() {
-        return List.copyOf(suspiciousClaims);
+        List<Claim> claims = new ArrayList<>(SAMPLE_SIZE);
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            Claim c = sample.get(i);
+            if (c != null) claims.add(c);
+        }
+        return claims;
     }
 
+    public long getSuspiciousCount() { return suspiciousCount.get(); }
+    public long getThrottleCount() { return throttleCount.get(); }
+
     @Override
     public void run() {
+        monitorThread = Thread.currentThread();
         while (!stopped.get()) {
-            cleanupOldTimes();
-            if (suspiciousTimes.size() >= threshold) {
-                System.out.println("Throttling intake: " + suspiciousTimes.size() + " suspicious claims in window.");
-                backlog.pauseIntake();
-                try { Thread.sleep(2000); } catch (InterruptedException ignored) {}
-                backlog.resumeIntake();
-                System.out.println("Intake resumed after throttling.");
-                suspiciousTimes.clear();
+            if (!throttling.get()) {
+                LockSupport.park(this);
+                continue;
+            }
+            throttleCount.incrementAndGet();
+            System.out.println("Throttling intake: " + windowCount(System.currentTimeMillis() / 1000)
+                    + " suspicious claims in window.");
+            long deadline = System.nanoTime() + THROTTLE_MS * 1_000_000;
+            long remaining;
+            while (!stopped.get() && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
             }
-            try { Thread.sleep(200); } catch (InterruptedException ignored) {}
+            // Start a fresh window, so one burst pauses intake once
+            for (int i = 0; i < buckets.length(); i++) buckets.set(i, 0);
+            backlog.resumeIntake();
+            System.out.println("Intake resumed after throttling.");
+            throttling.set(false);
+        }
+        if (throttling.get()) backlog.resumeIntake();
+    }
+
+    private void increment(long second) {
+        int i = (int) (second % buckets.length());
+        while (true) {
+            long packed = buckets.get(i);
+            long next = packed >>> COUNT_BITS == second
+                    ? Math.min(packed + 1, (second << COUNT_BITS) | COUNT_MASK)
+                    : (second << COUNT_BITS) | 1;
+            if (buckets.compareAndSet(i, packed, next)) return;
+        }
+    }
+
+    private long windowCount(long now) {
+        long count = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            long packed = buckets.get(i);
+            if (now - (packed >>> COUNT_BITS) < windowSec) count += packed & COUNT_MASK;
         }
+        return count;
     }
 
-    private void cleanupOldTimes() {
-        Instant cutoff = Instant.now().minusSeconds(windowSec);
-        while (!suspiciousTimes.isEmpty() && suspiciousTimes.peek().isBefore(cutoff)) {
-            suspiciousTimes.poll();
+    private void addToSample(Claim claim, long n) {
+        if (n <= SAMPLE_SIZE) {
+            sample.set((int) n - 1, claim);
+        } else {
+            long j = ThreadLocalRandom.current().nextLong(n);
+            if (j < SAMPLE_SIZE) sample.set((int) j, claim);
         }
     }
 }
@@ -0,0 +1,74 @@
+package com.claims;
+
+import com.claims.model.Claim;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+// Weighted fair queuing over classes of priority by claim type, by stride scheduling: each class
+// has a pass value that advances by 1/weight each time it is served, and the backlogged class with
+// the lowest pass goes next. A class's weight is its priority weight times its type weight, so
+// with URGENT:4,NORMAL:1 NORMAL still gets a fifth of the service under an URGENT burst. A class
+// that was empty rejoins at the current pass, so idle time does not bank credit.
+public class WeightedFairScheduling implements SchedulingPolicy {
+    private final double[] stride = new double[CLASSES];
+
+    // Weights indexed by Claim.Priority and Claim.Type ordinal; values below 1 count as 1
+    public WeightedFairScheduling(long[] priorityWeights, long[] typeWeights) {
+        for (Claim.Priority priority : Claim.Priority.values()) {
+            for (Claim.Type type : Claim.Type.values()) {
+                long weight = Math.max(1, priorityWeights[priority.ordinal()]) * Math.max(1, typeWeights[type.ordinal()]);
+                stride[SchedulingPolicy.classOf(priority, type)] = 1.0 / weight;
+            }
+        }
+    }
+
+    @Override
+    public ReadySet newReadySet() {
+        return new ReadySet() {
+            // Slots by the class of their head claim when added, in the order they became ready
+            private final List<ArrayDeque<ClaimBacklog.ReadySlot>> classes = new ArrayList<>(CLASSES);
+            private final double[] pass = new double[CLASSES];
+            private double virtualTime = 0;
+
+            {
+                for (int c = 0; c < CLASSES; c++) classes.add(new ArrayDeque<>());
+            }
+
+            @Override
+            public void add(ClaimBacklog.ReadySlot slot) {
+                int c = SchedulingPolicy.classOf(slot.priority, slot.head().claimType);
+                if (classes.get(c).isEmpty()) pass[c] = Math.max(pass[c], virtualTime);
+                classes.get(c).addLast(slot);
+            }
+
+            // A stale slot is handed out for the shard to discard without being charged to its
+            // class, so only claims actually served advance the pass and virtual time
+            @Override
+            public ClaimBacklog.ReadySlot poll(long nowNanos) {
+                int next = -1;
+                for (int c = 0; c < CLASSES; c++) {
+                    if (!classes.get(c).isEmpty() && (next < 0 || pass[c] < pass[next])) next = c;
+                }
+                if (next < 0) return null;
+                ClaimBacklog.ReadySlot slot = classes.get(next).pollFirst();
+                if (!slot.isStale() && slot.head() != null && !slot.isBusy()) {
+                    virtualTime = pass[next];
+                    pass[next] += stride[next];
+                }
+                return slot;
+            }
+
+            // From the class furthest from its turn
+            @Override
+            public ClaimBacklog.ReadySlot pollLast() {
+                int last = -1;
+                for (int c = 0; c < CLASSES; c++) {
+                    if (!classes.get(c).isEmpty() && (last < 0 || pass[c] > pass[last])) last = c;
+                }
+                return last < 0 ? null : classes.get(last).pollLast();
+            }
+        };
+    }
+}
@@ -1,33 +1,118 @@
 package com.claims.model;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
+// Kept compact for large backlogs: IDs of up to 8 ASCII characters are packed into a long and
+// only turned back into a String on demand, the type is an enum and the timestamp is epoch seconds.
+// A type outside the enum is OTHER and keeps its label from the input, see typeLabel().
 public class Claim {
     public enum Priority { URGENT, NORMAL }
     public enum Status { NEW, APPROVED, ESCALATED, REJECTED, IN_PROGRESS, FAILED, RETRYING, DUPLICATE }
+    public enum Type {
+        HEALTH("Health"), ACCIDENT("Accident"), FIRE("Fire"), THEFT("Theft"), OTHER("Other");
 
-    public final String claimId;
+        public final String label;
+
+        Type(String label) { this.label = label; }
+
+        // Exact, case-sensitive match on the label; anything else is OTHER
+        public static Type of(String label) {
+            for (Type t : values()) {
+                if (t.label.equals(label)) return t;
+            }
+            return OTHER;
+        }
+    }
+
+    // Packed ASCII bytes of the ID, or 0 if claimIdText holds it
+    private final long packedId;
+    private final String claimIdText;
     public final String policyNumber;
     public final int claimAmount;
-    public final String claimType;
-    public final LocalDateTime timestamp;
+    public final Type claimType;
+    // The input's label when it is none of the Type labels, else null
+    private final String otherType;
+    // Timestamp as written in the file (no zone), in seconds since 1970-01-01T00:00
+    public final long epochSecond;
     public final Priority priorityFlag;
     public volatile Status status;
     public int attempt;
+    // System.nanoTime() when the claim last entered its policy queue; set by the backlog
+    public long queuedAtNanos;
 
     public Claim(String claimId, String policyNumber, int claimAmount, String claimType,
                  LocalDateTime timestamp, Priority priorityFlag) {
-        this.claimId = claimId;
+        this(claimId, policyNumber, claimAmount, claimType, timestamp.toEpochSecond(ZoneOffset.UTC), priorityFlag);
+    }
+
+    public Claim(String claimId, String policyNumber, int claimAmount, String claimType,
+                 long epochSecond, Priority priorityFlag) {
+        this(claimId, policyNumber, claimAmount, Type.of(claimType), claimType, epochSecond, priorityFlag);
+    }
+
+    public Claim(String claimId, String policyNumber, int claimAmount, Type claimType,
+                 long epochSecond, Priority priorityFlag) {
+        this(claimId, policyNumber, claimAmount, claimType, null, epochSecond, priorityFlag);
+    }
+
+    // label is the type as read, kept only if claimType is OTHER and it is not OTHER's own label
+    private Claim(String claimId, String policyNumber, int claimAmount, Type claimType, String label,
+                  long epochSecond, Priority priorityFlag) {
+        this.packedId = pack(claimId);
+        this.claimIdText = packedId == 0 ? claimId : null;
         this.policyNumber = policyNumber;
         this.claimAmount = claimAmount;
         this.claimType = claimType;
-        this.timestamp = timestamp;
+        this.otherType = claimType == Type.OTHER && label != null && !label.equals(Type.OTHER.label) ? label : null;
+        this.epochSecond = epochSecond;
         this.priorityFlag = priorityFlag;
         this.status = Status.NEW;
         this.attempt = 0;
     }
 
+    // A new String for packed IDs; callers that need it repeatedly should keep it
+    public String claimId() {
+        if (claimIdText != null) return claimIdText;
+        byte[] bytes = new byte[8 - Long.numberOfLeadingZeros(packedId) / 8];
+        long v = packedId;
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            bytes[i] = (byte) v;
+            v >>>= 8;
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    // The type as read: the Type label, or the unknown label of an OTHER claim
+    public String typeLabel() {
+        return otherType != null ? otherType : claimType.label;
+    }
+
+    // The unknown label of an OTHER claim, or null
+    public String otherType() {
+        return otherType;
+    }
+
+    public LocalDateTime timestamp() {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    // Only the exact label "Accident", as Type.of is case-sensitive
     public boolean isSuspicious() {
-        return claimType.equals("Accident") && claimAmount >= 400000;
+        return claimType == Type.ACCIDENT && claimAmount >= 400000;
+    }
+
+    // 1 to 8 ASCII characters without NUL pack exactly; anything else returns 0
+    private static long pack(String id) {
+        int n = id.length();
+        if (n == 0 || n > 8) return 0;
+        long packed = 0;
+        for (int i = 0; i < n; i++) {
+            char c = id.charAt(i);
+            if (c == 0 || c > 127) return 0;
+            packed = packed << 8 | c;
+        }
+        return packed;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,70 @@
+package com.claims;
+
+import com.claims.model.Claim;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLoggerTest {
+    @TempDir
+    Path dir;
+
+    // A queue far smaller than a batch: producers block on it and still get every event written
+    @Test
+    void writesEveryEventThroughASmallQueue() throws Exception {
+        Path log = dir.resolve("audit.log");
+        AuditLogger logger = new AuditLogger(log, AuditLogger.Format.TEXT, AuditLogger.Durability.BATCH, 1000, 4,
+                new AuditHistory(100, 0));
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            results.add(pool.submit(() -> {
+                List<Claim> batch = new ArrayList<>();
+                for (int i = 0; i < 1000; i++) {
+                    Claim claim = claim(thread * 1000 + i);
+                    if (i % 2 == 0) {
+                        logger.logEvent(claim, "W" + thread, "NEW", "PROCESSING", 0);
+                    } else {
+                        batch.add(claim);
+                    }
+                }
+                logger.logEvents(batch, "W" + thread, "NEW", "INGESTED");
+            }));
+        }
+        for (Future<?> result : results) result.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+        logger.close();
+        assertEquals(4000, Files.readAllLines(log).size());
+    }
+
+    @Test
+    void idleWriterWaitsUntimed() throws Exception {
+        AuditLogger logger = new AuditLogger(dir.resolve("audit.log"));
+        logger.logEvent(claim(1), "W1", "NEW", "PROCESSING", 0);
+        Thread writer = null;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().equals("AuditWriter") && t.isAlive()) writer = t;
+        }
+        assertNotNull(writer);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.getState() != Thread.State.WAITING && System.nanoTime() < deadline) Thread.sleep(10);
+        assertEquals(Thread.State.WAITING, writer.getState());
+        logger.close();
+        assertFalse(writer.isAlive());
+    }
+
+    private static Claim claim(int i) {
+        return new Claim("C" + i, "P" + i, 100, Claim.Type.FIRE, 1_754_006_400L, Claim.Priority.NORMAL);
+    }
+}
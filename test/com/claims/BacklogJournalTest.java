@@ -0,0 +1,163 @@
+package com.claims;
+
+import com.claims.model.Claim;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BacklogJournalTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysLiveClaimsInAdmissionOrder() throws Exception {
+        BacklogJournal journal = open(1 << 20);
+        List<Claim> claims = claims(0, 6);
+        claims.add(new Claim("C6", "P6", 1000, "Flood", 1_754_006_400L, Claim.Priority.URGENT));
+        journal.admit(claims);
+        // C1 done, C2 in flight, C3 retried once and queued again, the rest never taken
+        take(journal, claims.get(1));
+        journal.done(claims.get(1));
+        take(journal, claims.get(2));
+        take(journal, claims.get(3));
+        journal.retried(claims.get(3));
+        journal.close();
+
+        List<Claim> recovered = recover(1 << 20);
+        assertEquals(List.of("C0", "C2", "C3", "C4", "C5", "C6"), ids(recovered));
+        assertEquals(0, recovered.get(0).attempt);
+        assertEquals(1, recovered.get(1).attempt); // the in-flight attempt counts as used
+        assertEquals(1, recovered.get(2).attempt);
+        Claim flood = recovered.get(5);
+        assertEquals(Claim.Type.OTHER, flood.claimType);
+        assertEquals("Flood", flood.typeLabel());
+        assertEquals(Claim.Priority.URGENT, flood.priorityFlag);
+        assertEquals(Claim.Status.NEW, flood.status);
+    }
+
+    @Test
+    void rollsOverSegmentsAndReplaysAcrossThem() throws Exception {
+        BacklogJournal journal = open(4096);
+        List<Claim> claims = claims(0, 2000);
+        for (int i = 0; i < claims.size(); i += 100) journal.admit(claims.subList(i, i + 100));
+        journal.close();
+
+        assertTrue(segments().size() > 5, "expected several segments, got " + segments().size());
+        assertEquals(ids(claims), ids(recover(4096)));
+    }
+
+    @Test
+    void ignoresTornAndCorruptTail() throws Exception {
+        BacklogJournal journal = open(1 << 20);
+        journal.admit(claims(0, 10));
+        journal.close();
+        Path last = segments().get(segments().size() - 1);
+
+        // A crash mid-record: the last record loses its CRC
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        assertEquals(ids(claims(0, 9)), ids(recover(1 << 20)));
+
+        // A whole record with a bad CRC ends replay there. All ten records have the same size;
+        // past the 16-byte header, flip a byte in the key of the second one
+        byte[] bytes = Files.readAllBytes(last);
+        int recordBytes = (bytes.length - 16 + 3) / 10;
+        bytes[16 + recordBytes + 4 + 2] ^= 0x55;
+        Files.write(last, bytes);
+        assertEquals(List.of("C0"), ids(recover(1 << 20)));
+    }
+
+    @Test
+    void compactsFinishedClaimsAway() throws Exception {
+        BacklogJournal journal = open(4096);
+        AtomicInteger compactions = new AtomicInteger();
+        journal.setBeforeCompaction(compactions::incrementAndGet);
+        List<Claim> claims = claims(0, 5000);
+        List<String> live = new ArrayList<>();
+        for (int i = 0; i < claims.size(); i += 100) {
+            List<Claim> batch = claims.subList(i, i + 100);
+            journal.admit(batch);
+            for (Claim claim : batch) {
+                if (claim.claimAmount % 50 == 0) {
+                    live.add(claim.claimId());
+                    continue;
+                }
+                take(journal, claim);
+                journal.done(claim);
+            }
+        }
+        journal.close();
+        assertTrue(compactions.get() > 0);
+
+        long bytes = 0;
+        for (Path p : segments()) bytes += Files.size(p);
+        // 5000 admissions alone take well over 100 KB; 100 live claims are a few KB
+        assertTrue(bytes < 32 * 1024, "journal not compacted: " + bytes + " bytes in " + segments().size() + " segments");
+        BacklogJournal reopened = open(4096);
+        assertEquals(live, ids(reopened.recover()));
+        assertEquals(live.size(), reopened.liveCount());
+        reopened.close();
+    }
+
+    @Test
+    void removesFilesOnceNothingIsLive() throws Exception {
+        BacklogJournal journal = open(4096);
+        List<Claim> claims = claims(0, 500);
+        journal.admit(claims);
+        for (Claim claim : claims) {
+            take(journal, claim);
+            journal.done(claim);
+        }
+        journal.close();
+        assertEquals(List.of(), segments());
+    }
+
+    private BacklogJournal open(long segmentBytes) throws IOException {
+        return new BacklogJournal(dir, segmentBytes, false);
+    }
+
+    // Recovers the journal in dir, leaving its files in place
+    private List<Claim> recover(long segmentBytes) throws IOException {
+        BacklogJournal journal = open(segmentBytes);
+        List<Claim> claims = journal.recover();
+        journal.close();
+        return claims;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".seg")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    // As a worker does: the backlog journals the take, then the worker starts an attempt
+    private static void take(BacklogJournal journal, Claim claim) {
+        journal.taken(claim);
+        claim.attempt++;
+    }
+
+    private static List<Claim> claims(int from, int to) {
+        List<Claim> claims = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            claims.add(new Claim("C" + i, "P" + (i % 7), i, Claim.Type.FIRE, 1_754_006_400L, Claim.Priority.NORMAL));
+        }
+        return claims;
+    }
+
+    private static List<String> ids(List<Claim> claims) {
+        return claims.stream().map(Claim::claimId).collect(Collectors.toList());
+    }
+}
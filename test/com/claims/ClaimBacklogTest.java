@@ -0,0 +1,179 @@
+package com.claims;
+
+import com.claims.model.Claim;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClaimBacklogTest {
+    private static final int CLAIMS = 200_000;
+    private static final int POLICIES = 2_000;
+
+    // Half the claims on 5 hot policies, so sharded consumers steal. Checks that a policy is never
+    // in flight twice and that each priority of a policy is taken in admission order.
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 8})
+    void keepsPolicyOrderUnderLoad(int shards) throws Exception {
+        checkPolicyOrder(new ClaimBacklog(10_000, null, null, shards), shards);
+    }
+
+    // Stolen policies leave stale slots behind in the victim's ready set, which these policies
+    // inspect when polled
+    @ParameterizedTest
+    @ValueSource(strings = {"WFQ", "AGING", "EDF"})
+    void keepsPolicyOrderWhileStealingUnder(String policy) throws Exception {
+        SchedulingPolicy scheduling = switch (policy) {
+            case "WFQ" -> new WeightedFairScheduling(new long[] {4, 1}, new long[] {1, 1, 1, 1, 1});
+            case "AGING" -> new AgingScheduling(1);
+            default -> new DeadlineScheduling(new long[] {1_000, 10_000});
+        };
+        checkPolicyOrder(new ClaimBacklog(10_000, null, null, 8, scheduling), 8);
+    }
+
+    private static void checkPolicyOrder(ClaimBacklog backlog, int shards) throws Exception {
+        AtomicIntegerArray busy = new AtomicIntegerArray(POLICIES);
+        AtomicIntegerArray lastSeq = new AtomicIntegerArray(2 * POLICIES);
+        for (int i = 0; i < lastSeq.length(); i++) lastSeq.set(i, -1);
+        AtomicInteger taken = new AtomicInteger();
+        AtomicInteger violations = new AtomicInteger();
+
+        int consumers = shards == 1 ? 4 : shards;
+        ExecutorService pool = Executors.newFixedThreadPool(consumers);
+        List<Future<?>> results = new ArrayList<>();
+        for (int c = 0; c < consumers; c++) {
+            int shard = shards == 1 ? -1 : c;
+            results.add(pool.submit(() -> {
+                Claim claim;
+                while ((claim = shard < 0 ? backlog.take() : backlog.take(shard)) != null) {
+                    int policy = Integer.parseInt(claim.policyNumber.substring(1));
+                    if (!busy.compareAndSet(policy, 0, 1)) violations.incrementAndGet();
+                    int slot = 2 * policy + claim.priorityFlag.ordinal();
+                    if (lastSeq.getAndSet(slot, claim.claimAmount) >= claim.claimAmount) violations.incrementAndGet();
+                    if (claim.claimAmount % 64 == 0) LockSupport.parkNanos(20_000);
+                    busy.set(policy, 0);
+                    taken.incrementAndGet();
+                    backlog.complete(claim);
+                }
+                return null;
+            }));
+        }
+
+        Random random = new Random(7);
+        List<Claim> batch = new ArrayList<>(256);
+        for (int i = 0; i < CLAIMS; i++) {
+            int policy = random.nextBoolean() ? random.nextInt(5) : random.nextInt(POLICIES);
+            Claim.Priority priority = random.nextInt(5) == 0 ? Claim.Priority.URGENT : Claim.Priority.NORMAL;
+            batch.add(new Claim("C" + i, "P" + policy, i, Claim.Type.FIRE, 1_754_006_400L, priority));
+            if (batch.size() == 256) {
+                backlog.putAll(batch);
+                batch = new ArrayList<>(256);
+            }
+        }
+        backlog.putAll(batch);
+        backlog.closeIntake();
+
+        for (Future<?> result : results) result.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertEquals(0, violations.get());
+        assertEquals(CLAIMS, taken.get());
+        assertEquals(0, backlog.size());
+    }
+
+    @Test
+    void idleShardConsumersWaitUntimed() throws Exception {
+        ClaimBacklog backlog = new ClaimBacklog(100, null, null, 4);
+        List<Thread> consumers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int shard = i;
+            Thread t = new Thread(() -> {
+                try {
+                    backlog.take(shard);
+                } catch (InterruptedException ignored) {
+                }
+            });
+            t.start();
+            consumers.add(t);
+        }
+        for (Thread t : consumers) {
+            assertEquals(Thread.State.WAITING, awaitBlocked(t));
+        }
+        backlog.closeIntake();
+        for (Thread t : consumers) t.join(5_000);
+    }
+
+    @Test
+    void idleConsumerStealsFromBusyShard() throws Exception {
+        ClaimBacklog backlog = new ClaimBacklog(100, null, null, 2);
+        List<String> shard0 = new ArrayList<>();
+        for (int p = 0; shard0.size() < 2; p++) {
+            if (Math.floorMod(("P" + p).hashCode(), 2) == 0) shard0.add("P" + p);
+        }
+        backlog.put(new Claim("C1", shard0.get(0), 1, Claim.Type.FIRE, 1_754_006_400L, Claim.Priority.NORMAL));
+        // Shard 0's consumer holds its claim, so shard 0 has a busy consumer from here on
+        Claim held = backlog.take(0);
+        assertNotNull(held);
+
+        CompletableFuture<Claim> stolen = new CompletableFuture<>();
+        Thread thief = new Thread(() -> {
+            try {
+                stolen.complete(backlog.take(1));
+            } catch (InterruptedException e) {
+                stolen.completeExceptionally(e);
+            }
+        });
+        thief.start();
+        assertEquals(Thread.State.WAITING, awaitBlocked(thief));
+
+        backlog.put(new Claim("C2", shard0.get(1), 2, Claim.Type.FIRE, 1_754_006_400L, Claim.Priority.NORMAL));
+        assertEquals(shard0.get(1), stolen.get(5, TimeUnit.SECONDS).policyNumber);
+    }
+
+    @Test
+    void interruptedPutLeavesNoJournalRecord(@TempDir Path dir) throws Exception {
+        BacklogJournal journal = new BacklogJournal(dir, 1 << 20, false);
+        journal.recover();
+        ClaimBacklog backlog = new ClaimBacklog(1, null, journal);
+        backlog.put(new Claim("C1", "P1", 1, Claim.Type.FIRE, 1_754_006_400L, Claim.Priority.NORMAL));
+
+        // Full, so this put blocks reserving capacity until interrupted
+        Thread putter = new Thread(() -> {
+            try {
+                backlog.putAll(List.of(new Claim("C2", "P2", 2, Claim.Type.FIRE, 1_754_006_400L, Claim.Priority.NORMAL)));
+            } catch (InterruptedException ignored) {
+            }
+        });
+        putter.start();
+        assertEquals(Thread.State.WAITING, awaitBlocked(putter));
+        putter.interrupt();
+        putter.join(5_000);
+        journal.close();
+
+        BacklogJournal reopened = new BacklogJournal(dir, 1 << 20, false);
+        List<Claim> recovered = reopened.recover();
+        reopened.close();
+        assertEquals(List.of("C1"), recovered.stream().map(Claim::claimId).toList());
+    }
+
+    // The state of t once it stops running, or its last state after 5 s
+    private static Thread.State awaitBlocked(Thread t) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Thread.State state = t.getState();
+        while ((state == Thread.State.NEW || state == Thread.State.RUNNABLE) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            state = t.getState();
+        }
+        return state;
+    }
+}
@@ -0,0 +1,116 @@
+package com.claims;
+
+import com.claims.model.Claim;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClaimCsvParserTest {
+    @Test
+    void matchesTypesExactlyAndKeepsUnknownLabels() throws Exception {
+        List<Claim> claims = parse("""
+                ClaimID,PolicyNumber,ClaimAmount,ClaimType,Timestamp,PriorityFlag
+                C1,P1,450000,Accident,2025-08-01T10:00:00,URGENT
+                C2,P1,450000,accident,2025-08-01T10:00:00,NORMAL
+                C3,P2,1000,Flood,2025-08-01T10:00,normal
+                C4,P2,1000,Other,2025-08-01T10:00,NORMAL
+                """);
+        assertEquals(4, claims.size());
+
+        assertEquals(Claim.Type.ACCIDENT, claims.get(0).claimType);
+        assertTrue(claims.get(0).isSuspicious());
+
+        assertEquals(Claim.Type.OTHER, claims.get(1).claimType);
+        assertEquals("accident", claims.get(1).typeLabel());
+        assertFalse(claims.get(1).isSuspicious());
+
+        assertEquals(Claim.Type.OTHER, claims.get(2).claimType);
+        assertEquals("Flood", claims.get(2).typeLabel());
+
+        assertEquals(Claim.Type.OTHER, claims.get(3).claimType);
+        assertNull(claims.get(3).otherType());
+        assertEquals("Other", claims.get(3).typeLabel());
+    }
+
+    @Test
+    void parallelChunksShareInternedStrings(@TempDir Path dir) throws Exception {
+        StringBuilder csv = new StringBuilder("ClaimID,PolicyNumber,ClaimAmount,ClaimType,Timestamp,PriorityFlag\n");
+        for (int i = 0; i < 2000; i++) {
+            csv.append("C").append(i).append(",P").append(i % 3).append(",100,")
+                    .append(i % 2 == 0 ? "Flood" : "Fire").append(",2025-08-01T10:00:00,NORMAL\n");
+        }
+        Path file = dir.resolve("claims.csv");
+        Files.writeString(file, csv);
+
+        List<Claim> claims = new ArrayList<>();
+        // Chunks of a few rows each, parsed on 4 threads
+        ClaimCsvParser.parseFileParallel(file, 4, 256, claim -> claims.add(claim));
+        assertEquals(2000, claims.size());
+        for (int i = 0; i < claims.size(); i++) {
+            Claim claim = claims.get(i);
+            assertEquals("C" + i, claim.claimId());
+            assertSame(claims.get(i % 3).policyNumber, claim.policyNumber);
+            if (i % 2 == 0) assertSame(claims.get(0).otherType(), claim.otherType());
+        }
+    }
+
+    @Test
+    void internerGivesThreadsTheSameString() throws Exception {
+        ClaimCsvParser.Interner interner = new ClaimCsvParser.Interner(64);
+        ByteBuffer[] values = values(32);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<String[]>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            results.add(pool.submit(() -> {
+                String[] seen = new String[values.length];
+                for (int i = 0; i < values.length; i++) seen[i] = interner.intern(values[i], 0, values[i].limit());
+                return seen;
+            }));
+        }
+        for (Future<String[]> result : results) {
+            String[] seen = result.get(10, TimeUnit.SECONDS);
+            for (int i = 0; i < values.length; i++) {
+                assertEquals("P" + i, seen[i]);
+                assertSame(interner.intern(values[i], 0, values[i].limit()), seen[i]);
+            }
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    void internerStopsGrowingWhenFull() {
+        ClaimCsvParser.Interner interner = new ClaimCsvParser.Interner(8);
+        ByteBuffer[] values = values(32);
+        int interned = 0;
+        for (ByteBuffer value : values) {
+            String first = interner.intern(value, 0, value.limit());
+            if (first == interner.intern(value, 0, value.limit())) interned++;
+        }
+        assertEquals(8, interned);
+    }
+
+    private static ByteBuffer[] values(int n) {
+        ByteBuffer[] values = new ByteBuffer[n];
+        for (int i = 0; i < n; i++) values[i] = ByteBuffer.wrap(("P" + i).getBytes(StandardCharsets.UTF_8));
+        return values;
+    }
+
+    private static List<Claim> parse(String csv) throws InterruptedException {
+        byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+        List<Claim> claims = new ArrayList<>();
+        new ClaimCsvParser().parse(ByteBuffer.wrap(bytes), 0, bytes.length, true, claim -> claims.add(claim));
+        return claims;
+    }
+}
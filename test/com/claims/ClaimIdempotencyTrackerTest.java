@@ -0,0 +1,160 @@
+package com.claims;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClaimIdempotencyTrackerTest {
+    private static final int CAPACITY = 16;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void addsAndFindsKeys() {
+        ClaimIdempotencyTracker.LongTable table = table();
+        for (long key = 1; key <= 8; key++) table.add(key);
+        table.add(3);
+        assertEquals(8, table.size());
+        for (long key = 1; key <= 8; key++) assertTrue(table.contains(key));
+        assertFalse(table.contains(9));
+    }
+
+    @Test
+    void removeShiftsProbeChainBack() {
+        // Four keys homed on the last slot wrap around to the front, ahead of a key homed on slot 1
+        List<Long> chain = keysHomedAt(CAPACITY - 1, 4);
+        long next = keysHomedAt(1, 1).get(0);
+        ClaimIdempotencyTracker.LongTable table = table();
+        chain.forEach(table::add);
+        table.add(next);
+
+        table.remove(chain.get(0));
+        table.remove(chain.get(2));
+        assertEquals(3, table.size());
+        assertFalse(table.contains(chain.get(0)));
+        assertFalse(table.contains(chain.get(2)));
+        assertTrue(table.contains(chain.get(1)));
+        assertTrue(table.contains(chain.get(3)));
+        assertTrue(table.contains(next));
+
+        table.remove(12345);
+        assertEquals(3, table.size());
+    }
+
+    @Test
+    void matchesHashSetUnderRandomAddsAndRemoves() {
+        ClaimIdempotencyTracker.LongTable table = table();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 20_000; i++) {
+            long key = 1 + random.nextInt(24);
+            if (expected.size() < CAPACITY / 2 && random.nextBoolean()) {
+                table.add(key);
+                expected.add(key);
+            } else {
+                table.remove(key);
+                expected.remove(key);
+            }
+            assertEquals(expected.size(), table.size());
+        }
+        for (long key = 1; key <= 24; key++) assertEquals(expected.contains(key), table.contains(key));
+    }
+
+    @Test
+    void growsStoreByRenameAndReopens() throws IOException {
+        Path store = dir.resolve("processed.idx");
+        ClaimIdempotencyTracker tracker = new ClaimIdempotencyTracker(store, 0, 0);
+        // Past half of the 1024-slot minimum twice over, so the table doubles twice
+        for (int i = 0; i < 2000; i++) {
+            assertTrue(tracker.markProcessing("C" + i));
+            tracker.complete("C" + i);
+        }
+        tracker.force();
+        assertEquals(8L * (2 + 4096), Files.size(store));
+        assertFalse(Files.exists(dir.resolve("processed.idx.tmp")));
+        assertTrue(tracker.markProcessing("C-open"));
+        tracker.close();
+
+        ClaimIdempotencyTracker reopened = new ClaimIdempotencyTracker(store, 0, 10);
+        assertEquals(2000, reopened.getProcessedCount());
+        for (int i = 0; i < 2000; i++) assertFalse(reopened.markProcessing("C" + i));
+        // Only completed IDs are kept; one in progress at the crash runs again
+        assertTrue(reopened.markProcessing("C-open"));
+        assertTrue(reopened.markProcessing("C2000"));
+        reopened.close();
+    }
+
+    @Test
+    void growsHeapTable() throws IOException {
+        ClaimIdempotencyTracker tracker = new ClaimIdempotencyTracker(null, 0, 10);
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(tracker.markProcessing("C" + i));
+            if (i % 2 == 0) tracker.complete("C" + i);
+        }
+        assertEquals(5000, tracker.getProcessedCount());
+        for (int i = 0; i < 5000; i++) assertFalse(tracker.markProcessing("C" + i));
+    }
+
+    @Test
+    void fullTableRefusesTheLastSlot() {
+        ClaimIdempotencyTracker.LongTable table = table();
+        for (long key = 1; key < CAPACITY; key++) table.add(key);
+        assertThrows(IllegalStateException.class, () -> table.add(CAPACITY));
+        assertFalse(table.contains(CAPACITY));
+        table.add(1);
+        assertEquals(CAPACITY - 1, table.size());
+    }
+
+    // The temporary file cannot be created, so the first growth fails: the table keeps what it has
+    // and later IDs are still skipped in this run, but only the ones stored survive a reopen
+    @Test
+    void keepsWorkingWhenStoreCannotGrow() throws IOException {
+        Path store = dir.resolve("processed.idx");
+        Files.createDirectories(dir.resolve("processed.idx.tmp").resolve("blocker"));
+        ClaimIdempotencyTracker tracker = new ClaimIdempotencyTracker(store, 0, 10);
+        for (int i = 0; i < 2000; i++) {
+            assertTrue(tracker.markProcessing("C" + i));
+            tracker.complete("C" + i);
+        }
+        for (int i = 0; i < 2000; i++) assertFalse(tracker.markProcessing("C" + i));
+        assertEquals(2000, tracker.getProcessedCount());
+        tracker.close();
+        assertEquals(8L * (2 + 1024), Files.size(store));
+
+        ClaimIdempotencyTracker reopened = new ClaimIdempotencyTracker(store, 0, 0);
+        assertEquals(513, reopened.getProcessedCount());
+        assertFalse(reopened.markProcessing("C0"));
+        reopened.close();
+    }
+
+    @Test
+    void rejectsForeignFile() throws IOException {
+        Path store = dir.resolve("processed.idx");
+        Files.write(store, new byte[64]);
+        assertThrows(IOException.class, () -> new ClaimIdempotencyTracker(store, 0, 0));
+    }
+
+    private static ClaimIdempotencyTracker.LongTable table() {
+        return new ClaimIdempotencyTracker.LongTable(LongBuffer.allocate(2 + CAPACITY), CAPACITY);
+    }
+
+    private static List<Long> keysHomedAt(int slot, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            if (((int) ClaimIdempotencyTracker.mix(key) & (CAPACITY - 1)) == slot) keys.add(key);
+        }
+        return keys;
+    }
+}
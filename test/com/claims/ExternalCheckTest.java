@@ -0,0 +1,51 @@
+package com.claims;
+
+import com.claims.model.Claim;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalCheckTest {
+    @AfterEach
+    void reset() {
+        ExternalCheck.setSimulatedLatencyMs(0);
+        ExternalCheck.setBatching(1, 5);
+    }
+
+    @Test
+    void batchAnswersEveryRequest() throws Exception {
+        ExternalCheck.setSimulatedLatencyMs(20);
+        ExternalCheck.setBatching(4, 5);
+        for (ExternalCheck.Result result : checkAll(10, 5_000)) {
+            assertNotEquals(ExternalCheck.Result.TIMEOUT, result);
+        }
+    }
+
+    @Test
+    void batchTimesOutAsAWhole() throws Exception {
+        ExternalCheck.setSimulatedLatencyMs(2_000);
+        ExternalCheck.setBatching(4, 5);
+        long start = System.nanoTime();
+        for (ExternalCheck.Result result : checkAll(8, 50)) {
+            assertEquals(ExternalCheck.Result.TIMEOUT, result);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static List<ExternalCheck.Result> checkAll(int n, int timeoutMs) throws Exception {
+        List<CompletableFuture<ExternalCheck.Result>> futures = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            futures.add(ExternalCheck.checkAsync(
+                    new Claim("C" + i, "P" + i, 100, Claim.Type.FIRE, 1_754_006_400L, Claim.Priority.NORMAL), timeoutMs));
+        }
+        List<ExternalCheck.Result> results = new ArrayList<>();
+        for (CompletableFuture<ExternalCheck.Result> f : futures) results.add(f.get(10, TimeUnit.SECONDS));
+        return results;
+    }
+}
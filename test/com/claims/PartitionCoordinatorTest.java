@@ -0,0 +1,51 @@
+package com.claims;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionCoordinatorTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void refusesStoresOfAnotherPartitionCount() throws IOException {
+        Path store = dir.resolve("processed.idx");
+        Path journal = dir.resolve("journal");
+        Files.createFile(PartitionWorker.partPath(store, 0, 2));
+        Files.createFile(PartitionWorker.partPath(store, 1, 2));
+
+        PartitionCoordinator.checkStoredPartitions(config(2, store, journal));
+        IOException e = assertThrows(IOException.class,
+                () -> PartitionCoordinator.checkStoredPartitions(config(4, store, journal)));
+        assertTrue(e.getMessage().contains("partitions=2"), e.getMessage());
+        assertThrows(IOException.class, () -> PartitionCoordinator.checkStoredPartitions(config(1, store, journal)));
+    }
+
+    @Test
+    void refusesSingleProcessStateWhenPartitioned() throws IOException {
+        Path store = dir.resolve("processed.idx");
+        Path journal = dir.resolve("journal");
+        Files.createDirectories(journal);
+        // An empty journal holds nothing to recover
+        PartitionCoordinator.checkStoredPartitions(config(3, store, journal));
+
+        Files.createFile(journal.resolve("journal-0000000001.seg"));
+        PartitionCoordinator.checkStoredPartitions(config(1, store, journal));
+        assertThrows(IOException.class, () -> PartitionCoordinator.checkStoredPartitions(config(3, store, journal)));
+    }
+
+    private static Config config(int partitions, Path store, Path journal) {
+        Properties props = new Properties();
+        props.setProperty("partitions", Integer.toString(partitions));
+        props.setProperty("idempotencyStorePath", store.toString());
+        props.setProperty("journalPath", journal.toString());
+        return Config.fromProperties(props);
+    }
+}
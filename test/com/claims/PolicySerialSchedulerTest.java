@@ -0,0 +1,55 @@
+package com.claims;
+
+import com.claims.model.Claim;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolicySerialSchedulerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void retryThreadEndsWithLastWorker() throws Exception {
+        assertRetryThreadEnds("FIXED");
+    }
+
+    @Test
+    void retryThreadEndsWithDispatcher() throws Exception {
+        assertRetryThreadEnds("VIRTUAL");
+    }
+
+    // No shutdown() call: draining a closed backlog alone must stop the retry thread
+    private void assertRetryThreadEnds(String workerMode) throws Exception {
+        Properties props = new Properties();
+        props.setProperty("workerMode", workerMode);
+        props.setProperty("retryBaseDelayMs", "1");
+        props.setProperty("retryMaxDelayMs", "10");
+        Config config = new Config(4, Integer.MAX_VALUE, 60_000, 3, 30, 5, dir.resolve("claims.csv"),
+                dir.resolve("audit.log"), dir.resolve("summary.txt"), props);
+        AuditLogger auditLogger = new AuditLogger(config.getAuditLogPath());
+        ClaimBacklog backlog = new ClaimBacklog(config.getBacklogCapacity(), auditLogger);
+        PolicySerialScheduler scheduler = new PolicySerialScheduler(backlog, new ClaimIdempotencyTracker(),
+                auditLogger, new SummaryReport(config.getSummaryReportPath()), config);
+        List<Claim> claims = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            claims.add(new Claim("C" + i, "P" + i % 20, 1_000 + i, Claim.Type.FIRE, 1_754_006_400L,
+                    Claim.Priority.NORMAL));
+        }
+        backlog.putAll(claims);
+
+        scheduler.startWorkers();
+        backlog.closeIntake();
+        scheduler.awaitFinish();
+        scheduler.retryThread.join(5_000);
+        assertFalse(scheduler.retryThread.isAlive());
+        scheduler.shutdown();
+        auditLogger.close();
+    }
+}
@@ -0,0 +1,134 @@
+package com.claims;
+
+import com.claims.model.Claim;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchedulingPolicyTest {
+    private static final long FILED = 1_754_006_400L;
+    private static final long[] TYPE_WEIGHTS = {1, 1, 1, 1, 1};
+
+    private int policies = 0;
+
+    @Test
+    void strictServesEveryUrgentSlotFirst() {
+        SchedulingPolicy.ReadySet set = new StrictPriorityScheduling().newReadySet();
+        List<ClaimBacklog.ReadySlot> slots = List.of(slot(Claim.Priority.NORMAL), slot(Claim.Priority.URGENT),
+                slot(Claim.Priority.NORMAL), slot(Claim.Priority.URGENT));
+        slots.forEach(set::add);
+        assertEquals(List.of(slots.get(1), slots.get(3), slots.get(0), slots.get(2)), pollAll(set, 0));
+    }
+
+    @Test
+    void weightedFairSharesServiceFourToOne() {
+        SchedulingPolicy.ReadySet set = new WeightedFairScheduling(new long[] {4, 1}, TYPE_WEIGHTS).newReadySet();
+        for (int i = 0; i < 100; i++) {
+            set.add(slot(Claim.Priority.URGENT));
+            set.add(slot(Claim.Priority.NORMAL));
+        }
+        assertEquals(10, countNormal(set, 50), 1);
+    }
+
+    // Stale slots of stolen policies are handed out without advancing their class's pass, so the
+    // live slots behind them still get their share
+    @Test
+    void weightedFairDoesNotChargeStaleSlots() {
+        SchedulingPolicy.ReadySet set = new WeightedFairScheduling(new long[] {4, 1}, TYPE_WEIGHTS).newReadySet();
+        for (int i = 0; i < 10; i++) {
+            ClaimBacklog.ReadySlot slot = slot(Claim.Priority.NORMAL);
+            set.add(slot);
+            slot.queue.detachSlots();
+            assertTrue(slot.isStale());
+            assertNull(slot.head());
+        }
+        for (int i = 0; i < 100; i++) {
+            set.add(slot(Claim.Priority.URGENT));
+            set.add(slot(Claim.Priority.NORMAL));
+        }
+        assertEquals(10, countNormal(set, 50), 1);
+    }
+
+    @Test
+    void agingPromotesNormalAfterAgingMs() {
+        long agingNanos = TimeUnit.MILLISECONDS.toNanos(2000);
+        SchedulingPolicy.ReadySet set = new AgingScheduling(2000).newReadySet();
+        ClaimBacklog.ReadySlot normal = slot(Claim.Priority.NORMAL);
+        normal.head().queuedAtNanos = 0;
+        ClaimBacklog.ReadySlot urgent1 = slot(Claim.Priority.URGENT);
+        ClaimBacklog.ReadySlot urgent2 = slot(Claim.Priority.URGENT);
+        set.add(normal);
+        set.add(urgent1);
+        set.add(urgent2);
+
+        assertSame(urgent1, set.poll(agingNanos - 1));
+        assertSame(normal, set.poll(agingNanos));
+        assertSame(urgent2, set.poll(agingNanos));
+        assertNull(set.poll(agingNanos));
+    }
+
+    // A stale NORMAL slot at the front is handed out for the shard to discard, without its head
+    // deciding anything
+    @Test
+    void agingHandsOutStaleSlotsWithoutReadingThem() {
+        SchedulingPolicy.ReadySet set = new AgingScheduling(2000).newReadySet();
+        ClaimBacklog.ReadySlot stale = slot(Claim.Priority.NORMAL);
+        ClaimBacklog.ReadySlot urgent = slot(Claim.Priority.URGENT);
+        set.add(stale);
+        set.add(urgent);
+        stale.queue.detachSlots();
+        assertSame(stale, set.poll(0));
+        assertSame(urgent, set.poll(0));
+    }
+
+    @Test
+    void deadlineServesEarliestDueFirst() {
+        long hour = 3_600;
+        SchedulingPolicy.ReadySet set = new DeadlineScheduling(new long[] {hour * 1000, 24 * hour * 1000}).newReadySet();
+        ClaimBacklog.ReadySlot normalNow = slot(Claim.Priority.NORMAL, FILED);
+        ClaimBacklog.ReadySlot urgentNow = slot(Claim.Priority.URGENT, FILED);
+        ClaimBacklog.ReadySlot normalOld = slot(Claim.Priority.NORMAL, FILED - 48 * hour);
+        ClaimBacklog.ReadySlot urgentEarlier = slot(Claim.Priority.URGENT, FILED - hour / 2);
+        ClaimBacklog.ReadySlot urgentTie = slot(Claim.Priority.URGENT, FILED);
+        for (ClaimBacklog.ReadySlot slot : List.of(normalNow, urgentNow, normalOld, urgentEarlier, urgentTie)) {
+            set.add(slot);
+        }
+        // Ties in the order the slots became ready
+        assertEquals(List.of(normalOld, urgentEarlier, urgentNow, urgentTie, normalNow), pollAll(set, 0));
+    }
+
+    private ClaimBacklog.ReadySlot slot(Claim.Priority priority) {
+        return slot(priority, FILED);
+    }
+
+    // The slot of a new policy queue holding one claim
+    private ClaimBacklog.ReadySlot slot(Claim.Priority priority, long epochSecond) {
+        String policy = "P" + policies++;
+        ClaimBacklog.PolicyQueue queue = new ClaimBacklog.PolicyQueue(policy);
+        queue.enqueue(new Claim("C" + policies, policy, 100, Claim.Type.FIRE, epochSecond, priority));
+        return queue.slots[priority.ordinal()];
+    }
+
+    private static List<ClaimBacklog.ReadySlot> pollAll(SchedulingPolicy.ReadySet set, long nowNanos) {
+        List<ClaimBacklog.ReadySlot> polled = new ArrayList<>();
+        ClaimBacklog.ReadySlot slot;
+        while ((slot = set.poll(nowNanos)) != null) polled.add(slot);
+        return polled;
+    }
+
+    // NORMAL slots among the first n live slots polled
+    private static int countNormal(SchedulingPolicy.ReadySet set, int n) {
+        int normal = 0;
+        for (int live = 0; live < n; ) {
+            ClaimBacklog.ReadySlot slot = set.poll(0);
+            if (slot.isStale()) continue;
+            live++;
+            if (slot.priority == Claim.Priority.NORMAL) normal++;
+        }
+        return normal;
+    }
+}
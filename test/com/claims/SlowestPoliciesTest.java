@@ -0,0 +1,34 @@
+package com.claims;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowestPoliciesTest {
+    @Test
+    void keepsLongestWaitPerPolicy() {
+        SlowestPolicies slowest = new SlowestPolicies("wait", 3);
+        slowest.recordNanos("P1", 5_000);
+        slowest.recordNanos("P2", 9_000);
+        slowest.recordNanos("P1", 7_000);
+        slowest.recordNanos("P1", 1_000);
+        assertEquals(Map.of("P2", 9L, "P1", 7L), slowest.snapshot());
+        assertEquals(List.of("P2", "P1"), new ArrayList<>(slowest.snapshot().keySet()));
+    }
+
+    @Test
+    void evictsShortestOnceFull() {
+        SlowestPolicies slowest = new SlowestPolicies("wait", 3);
+        for (int i = 1; i <= 100; i++) slowest.recordNanos("P" + i, i * 1_000L);
+        assertEquals(List.of("P100", "P99", "P98"), new ArrayList<>(slowest.snapshot().keySet()));
+        // No longer than the shortest kept: dropped
+        slowest.recordNanos("P1", 98_000);
+        assertEquals(List.of("P100", "P99", "P98"), new ArrayList<>(slowest.snapshot().keySet()));
+        slowest.recordNanos("P1", 150_000);
+        assertEquals(Map.of("P1", 150L, "P100", 100L, "P99", 99L), slowest.snapshot());
+    }
+}